@@ -4,9 +4,15 @@ import ecs.audio.MockAudioPlayer;
 import ecs.ecs.components.*;
 import ecs.ecs.entities.Block;
 import ecs.ecs.entities.Player;
-import ecs.ecs.systems.SystemManager;
+import ecs.ecs.systems.LightManager;
+import ecs.ecs.systems.RenderSnapshot;
+import ecs.ecs.systems.SceneRegions;
+import ecs.ecs.systems.Simulation;
+import ecs.ecs.systems.SnapshotExchange;
+import ecs.event.AsyncObserver;
 import ecs.event.EventNotifier;
 import ecs.event.GameEvent;
+import ecs.event.OverflowPolicy;
 import ecs.level.LevelLoader;
 import ecs.settings.Settings;
 import javafx.animation.AnimationTimer;
@@ -29,7 +35,7 @@ import javafx.scene.text.Text;
 import javafx.scene.transform.Rotate;
 import javafx.stage.Stage;
 import javafx.util.Duration;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  IF YOU ENCOUNTER ARTIFACTS
@@ -59,12 +65,15 @@ public class Game extends Application {
     public static int levelWidth;
 
     // store key input in a hashmap
-    public static HashMap<KeyCode,Boolean> keyInput = new HashMap<>();
+    // written on the fx thread, read on the simulation thread
+    public static ConcurrentHashMap<KeyCode,Boolean> keyInput = new ConcurrentHashMap<>();
 
     // camera
     private Camera camera = new PerspectiveCamera(true);
     // create pivot-point for camera
     Group cameraPivot = new Group();
+    // half of the area seen by the camera (incl. margin), for culling
+    private double viewHalfWidth, viewHalfHeight;
 
     // player
     public static Player player;
@@ -76,12 +85,17 @@ public class Game extends Application {
     private final DoubleProperty angleX = new SimpleDoubleProperty();
     private final DoubleProperty angleY = new SimpleDoubleProperty();
 
-    // level-loader, system-manager, event-notifier, audio-player
+    // level-loader, simulation, event-notifier, audio-player
     private LevelLoader levelLoader = new LevelLoader();
-    private SystemManager systemManager;
+    private Simulation simulation;
     private EventNotifier eventNotifier = EventNotifier.getInstance();
     private MockAudioPlayer audioPlayer = new MockAudioPlayer();
 
+    // render snapshots of the simulation
+    private SnapshotExchange snapshotExchange = SnapshotExchange.getInstance();
+    private SceneRegions sceneRegions = SceneRegions.getInstance();
+    private LightManager lightManager = LightManager.getInstance();
+
     Block test;
 
     /**
@@ -115,9 +129,8 @@ public class Game extends Application {
         levelWidth = levelLoader.getMapWidth();
         System.out.println("map dimensions: x: "+levelWidth+" y: "+levelHeight);
 
-        // init & run the SystemManager
-        systemManager = new SystemManager();
-        systemManager.init();
+        // init the simulation (SystemManager)
+        simulation = new Simulation();
     }
 
     /**
@@ -162,7 +175,7 @@ public class Game extends Application {
         AnimationTimer timer = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                update();
+                update(now);
             }
         };
         timer.start();
@@ -172,32 +185,39 @@ public class Game extends Application {
         stage.show();
 
         // register audio-player as event-handler
-        eventNotifier.addEventhandler(GameEvent.ANY, audioPlayer);
+        // sounds are played on their own thread, outdated sounds are dropped
+        eventNotifier.addEventhandler(GameEvent.ANY, new AsyncObserver(audioPlayer, Settings.getAsyncObserverCapacity(), OverflowPolicy.DROP_OLDEST));
+
+        // run the simulation on its own thread
+        simulation.start();
 
         // test ECS: add, modify, delete entity during runtime
+        // entities belong to the simulation thread, so changes are passed in
         Timeline timeline = new Timeline(
-                new KeyFrame(Duration.seconds(1), e -> {
+                new KeyFrame(Duration.seconds(1), e -> simulation.runLater(() -> {
                     player.addComponent(new LightComponent(Color.BLUE));
                     player.addComponent(new ColliderComponent(10,50,10));
-                }),
-                new KeyFrame(Duration.seconds(2), e -> {
+                })),
+                new KeyFrame(Duration.seconds(2), e -> simulation.runLater(() -> {
                     test = new Block(200, 500, -200);
-                }),
-                new KeyFrame(Duration.seconds(3), e -> {
+                })),
+                new KeyFrame(Duration.seconds(3), e -> simulation.runLater(() -> {
                     test.addComponent(new LightComponent(Color.RED));
-                }),
-                new KeyFrame(Duration.seconds(5), e -> {
+                })),
+                new KeyFrame(Duration.seconds(5), e -> simulation.runLater(() -> {
 //                    test.removeComponent(test.getComponent(ShapeComponent.class));
-                }),
-                new KeyFrame(Duration.seconds(6), e -> {
-                    test.getComponent(PositionComponent.class).setValue(new Point3D(200,500,0));
+                })),
+                new KeyFrame(Duration.seconds(6), e -> simulation.runLater(() -> {
+                    PositionComponent position = test.tryGetComponent(PositionComponent.class);
+                    position.setValue(new Point3D(200,500,0));
+                    test.updateComponent(position);
 //                    test.removeComponent(test.getComponent(ColliderComponent.class));
                     test.addComponent(new VelocityComponent());
                     test.addComponent(new GravityComponent());
-                }),
-                new KeyFrame(Duration.seconds(10), e -> {
+                })),
+                new KeyFrame(Duration.seconds(10), e -> simulation.runLater(() -> {
                     test.delete();
-                })
+                }))
         );
         timeline.play();
     }
@@ -220,6 +240,13 @@ public class Game extends Application {
         cameraPivot.translateYProperty().set((double) windowHeight /2);
         camera.translateZProperty().set(-1110);
 
+        // view rectangle at z = 0: the field of view is vertical by default
+        double distance = -camera.getTranslateZ();
+        viewHalfHeight = distance * Math.tan(Math.toRadians(((PerspectiveCamera) camera).getFieldOfView() / 2));
+        viewHalfWidth = viewHalfHeight * windowWidth / windowHeight;
+        viewHalfHeight += Settings.getCullMargin();
+        viewHalfWidth += Settings.getCullMargin();
+
         if (Settings.fancyCamera()) {
             cameraPivot.getTransforms().addAll(
                     new Rotate(-10, Rotate.X_AXIS),
@@ -262,20 +289,34 @@ public class Game extends Application {
     }
 
     /**
-     * main update tick
+     * main update, once per frame
+     * the simulation runs on its own thread, here we apply its latest render snapshot
+     *
+     * @param now
+     *      frame time in nanoseconds
      */
-    private void update() {
-        // run the SystemManager
-        systemManager.update();
+    private void update(long now) {
+        // apply the render snapshot, moving shapes are placed between the last two ticks
+        RenderSnapshot snapshot = snapshotExchange.acquire();
+        double alpha = snapshot.getAlpha(now, simulation.getTickNanos());
+        snapshot.apply(alpha);
 
         // move camera to player position
-        if (Settings.cameraFollowPlayer()) {
-            Point3D playerPosition = (Point3D) player.getComponent(PositionComponent.class).getValue();
+        Point3D playerPosition = snapshot.getFocus(alpha);
+        if (Settings.cameraFollowPlayer() && playerPosition != null) {
             cameraPivot.setTranslateX(playerPosition.getX());
             cameraPivot.setTranslateY(playerPosition.getY());
             cameraPivot.setTranslateZ(playerPosition.getZ());
         }
 
+        // attach the regions in view, detach the others
+        if (Settings.culling()) {
+            sceneRegions.setView(cameraPivot.getTranslateX(), cameraPivot.getTranslateY(), viewHalfWidth, viewHalfHeight);
+        }
+
+        // switch on the lights next to the camera focus
+        lightManager.update(cameraPivot.getTranslateX(), cameraPivot.getTranslateY(), cameraPivot.getTranslateZ());
+
         if (Settings.cameraRotation()) {
             // reset camera
             if (isPressed(KeyCode.R)) {
@@ -298,7 +339,7 @@ public class Game extends Application {
      */
     @Override
     public void stop() {
-
+        simulation.stop();
     }
 
     /**
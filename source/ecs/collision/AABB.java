@@ -0,0 +1,203 @@
+package ecs.collision;
+
+/**
+ * axis aligned bounding box
+ *
+ * plain data for collision detection, no scene-graph involved
+ * the box is centered on its position (like a javafx box)
+ */
+public class AABB {
+
+    // axis indices for sweep tests
+    public static final int X_AXIS = 0;
+    public static final int Y_AXIS = 1;
+    public static final int Z_AXIS = 2;
+
+    // sweep result if the boxes do not touch
+    public static final double NO_HIT = Double.POSITIVE_INFINITY;
+
+    // tolerance for touching faces (floating point noise)
+    public static final double EPSILON = 1e-6;
+
+    // bounds
+    public double minX, minY, minZ;
+    public double maxX, maxY, maxZ;
+
+    // center
+    private double x, y, z;
+
+    // dimension
+    private double width, height, depth;
+
+    /**
+     * constructor
+     *
+     * @param width
+     * @param height
+     * @param depth
+     */
+    public AABB(double width, double height, double depth) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        setPosition(0, 0, 0);
+    }
+
+    /**
+     * set the center of the box
+     *
+     * @param x
+     *      x-position
+     * @param y
+     *      y-position
+     * @param z
+     *      z-position
+     */
+    public void setPosition(double x, double y, double z) {
+        setX(x);
+        setY(y);
+        setZ(z);
+    }
+
+    public void setX(double x) {
+        this.x = x;
+        minX = x - width / 2;
+        maxX = x + width / 2;
+    }
+
+    public void setY(double y) {
+        this.y = y;
+        minY = y - height / 2;
+        maxY = y + height / 2;
+    }
+
+    public void setZ(double z) {
+        this.z = z;
+        minZ = z - depth / 2;
+        maxZ = z + depth / 2;
+    }
+
+    /**
+     * set the dimension, the center is kept
+     *
+     * @param width
+     * @param height
+     * @param depth
+     */
+    public void setSize(double width, double height, double depth) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        setPosition(x, y, z);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getDepth() {
+        return depth;
+    }
+
+    /**
+     * check if two boxes intersect
+     * touching boxes intersect as well
+     *
+     * @param other
+     *      other box
+     * @return
+     *      boolean intersection
+     */
+    public boolean intersects(AABB other) {
+        return minX <= other.maxX && maxX >= other.minX &&
+               minY <= other.maxY && maxY >= other.minY &&
+               minZ <= other.maxZ && maxZ >= other.minZ;
+    }
+
+    /**
+     * get the lower bound of an axis
+     *
+     * @param axis
+     *      X_AXIS, Y_AXIS or Z_AXIS
+     * @return
+     *      lower bound
+     */
+    public double getMin(int axis) {
+        return axis == X_AXIS ? minX : axis == Y_AXIS ? minY : minZ;
+    }
+
+    /**
+     * get the upper bound of an axis
+     *
+     * @param axis
+     *      X_AXIS, Y_AXIS or Z_AXIS
+     * @return
+     *      upper bound
+     */
+    public double getMax(int axis) {
+        return axis == X_AXIS ? maxX : axis == Y_AXIS ? maxY : maxZ;
+    }
+
+    /**
+     * swept test (time of impact) while moving this box along a single axis
+     *
+     * the other box blocks if it overlaps on both remaining axes (touching is not enough)
+     * and lies ahead in moving direction within reach,
+     * a touching face ahead blocks immediately (time 0)
+     * boxes already overlapping on the moving axis do not block, so stuck entities can get out
+     *
+     * @param axis
+     *      X_AXIS, Y_AXIS or Z_AXIS
+     * @param distance
+     *      signed distance to move
+     * @param other
+     *      other box
+     * @return
+     *      time of impact 0..1 (fraction of distance) or NO_HIT
+     */
+    public double sweep(int axis, double distance, AABB other) {
+        if (distance == 0 || !overlaps(axis == X_AXIS ? Y_AXIS : X_AXIS, other) ||
+            !overlaps(axis == Z_AXIS ? Y_AXIS : Z_AXIS, other)) {
+            return NO_HIT;
+        }
+
+        // gap between the faces in moving direction
+        double gap = distance > 0 ? other.getMin(axis) - getMax(axis) : getMin(axis) - other.getMax(axis);
+        double reach = Math.abs(distance);
+        if (gap < -EPSILON || gap > reach) {
+            return NO_HIT;
+        }
+        return Math.max(gap, 0) / reach;
+    }
+
+    /**
+     * helper function to check if two boxes overlap on an axis
+     * touching faces do not overlap
+     *
+     * @param axis
+     *      X_AXIS, Y_AXIS or Z_AXIS
+     * @param other
+     *      other box
+     * @return
+     *      boolean overlap
+     */
+    private boolean overlaps(int axis, AABB other) {
+        return getMin(axis) < other.getMax(axis) - EPSILON && getMax(axis) > other.getMin(axis) + EPSILON;
+    }
+}
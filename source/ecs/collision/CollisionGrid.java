@@ -0,0 +1,350 @@
+package ecs.collision;
+
+import ecs.ecs.components.ColliderComponent;
+import ecs.settings.Settings;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * uniform grid (broadphase) for collision detection
+ *
+ * the level is divided into square cells of Settings.getBlocksize()
+ * every collider is stored in all cells its bounds overlap (x- and y-axis)
+ * a query only returns colliders of the overlapping cells,
+ * instead of all colliders in the world
+ *
+ * positions outside the level are clamped to the border cells
+ *
+ * static colliders (level blocks) are kept apart from dynamic ones:
+ * they are stored in an immutable, precomputed index (one flat array, sliced per cell)
+ * which is built on the first query after level load and rebuilt only on add or remove
+ * (once per batch: removing many blocks, e.g. on level unload, costs one rebuild)
+ * dynamic colliders are kept in per-cell lists and updated on every move
+ *
+ * singleton
+ */
+public class CollisionGrid {
+
+    private static CollisionGrid collisionGrid = new CollisionGrid();
+
+    // cell size
+    private int cellSize = Settings.getBlocksize();
+
+    // grid dimension in cells
+    private int columns = 1;
+    private int rows = 1;
+
+    // dynamic colliders per cell, index: row * columns + column
+    private List<List<ColliderComponent>> cells = new ArrayList<>();
+
+    // static colliders, every collider knows its index (swap-remove in constant time)
+    private List<ColliderComponent> staticColliders = new ArrayList<>();
+
+    // static index, colliders of cell i: staticCells[staticStart[i] .. staticStart[i+1]-1]
+    private ColliderComponent[] staticCells = new ColliderComponent[0];
+    private int[] staticStart = new int[2];
+
+    // static index has to be rebuilt
+    private boolean staticDirty = false;
+
+    // query stamp, prevents returning a collider spanning multiple cells twice
+    private int queryStamp = 0;
+
+    private CollisionGrid() {
+        cells.add(new ArrayList<>());
+    }
+
+    /* Static 'instance' method */
+    public static CollisionGrid getInstance( ) {
+        return collisionGrid;
+    }
+
+    /**
+     * set the grid dimension to the level size
+     * all stored colliders will be re-inserted
+     *
+     * @param width
+     *      level width
+     * @param height
+     *      level height
+     */
+    public void init(int width, int height) {
+        List<ColliderComponent> stored = new ArrayList<>();
+        query(0, 0, columns * cellSize, rows * cellSize, stored);
+        stored.removeIf(ColliderComponent::isStatic);
+
+        columns = Math.max(1, (int) Math.ceil((double) width / cellSize) + 1);
+        rows = Math.max(1, (int) Math.ceil((double) height / cellSize) + 1);
+        cells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+
+        for (ColliderComponent collider : stored) {
+            collider.inGrid = false;
+            update(collider);
+        }
+        staticDirty = true;
+    }
+
+    /**
+     * insert or move a collider
+     * has to be called whenever the position of the collider changes
+     *
+     * @param collider
+     *      collider
+     */
+    public void update(ColliderComponent collider) {
+        if (collider.isStatic()) {
+            updateStatic(collider);
+            return;
+        }
+
+        AABB box = collider.getValue();
+        int minColumn = column(box.minX);
+        int maxColumn = column(box.maxX);
+        int minRow = row(box.minY);
+        int maxRow = row(box.maxY);
+
+        // still in the same cells
+        if (collider.inGrid &&
+            minColumn == collider.minColumn && maxColumn == collider.maxColumn &&
+            minRow == collider.minRow && maxRow == collider.maxRow) {
+            return;
+        }
+
+        remove(collider);
+        collider.minColumn = minColumn;
+        collider.maxColumn = maxColumn;
+        collider.minRow = minRow;
+        collider.maxRow = maxRow;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                cells.get(row * columns + column).add(collider);
+            }
+        }
+        collider.inGrid = true;
+    }
+
+    /**
+     * remove a collider
+     *
+     * @param collider
+     *      collider
+     */
+    public void remove(ColliderComponent collider) {
+        if (!collider.inGrid) {
+            return;
+        }
+        if (collider.isStatic()) {
+            // swap with the last one
+            ColliderComponent last = staticColliders.remove(staticColliders.size() - 1);
+            if (last != collider) {
+                staticColliders.set(collider.staticIndex, last);
+                last.staticIndex = collider.staticIndex;
+            }
+            collider.staticIndex = -1;
+            collider.inGrid = false;
+            staticDirty = true;
+            return;
+        }
+        for (int row = collider.minRow; row <= collider.maxRow; row++) {
+            for (int column = collider.minColumn; column <= collider.maxColumn; column++) {
+                cells.get(row * columns + column).remove(collider);
+            }
+        }
+        collider.inGrid = false;
+    }
+
+    /**
+     * collect all colliders in cells overlapping an area
+     * colliders are candidates, they still have to be tested exactly
+     *
+     * @param minX
+     *      left
+     * @param minY
+     *      top
+     * @param maxX
+     *      right
+     * @param maxY
+     *      bottom
+     * @param result
+     *      list the candidates will be added to
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<ColliderComponent> result) {
+        prepare();
+
+        int stamp = ++queryStamp;
+        int minColumn = column(minX);
+        int maxColumn = column(maxX);
+        int minRow = row(minY);
+        int maxRow = row(maxY);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                int index = row * columns + column;
+
+                // static colliders
+                for (int i = staticStart[index]; i < staticStart[index + 1]; i++) {
+                    ColliderComponent collider = staticCells[i];
+                    if (collider.gridStamp != stamp) {
+                        collider.gridStamp = stamp;
+                        result.add(collider);
+                    }
+                }
+
+                // dynamic colliders
+                List<ColliderComponent> cell = cells.get(index);
+                for (int i = 0; i < cell.size(); i++) {
+                    ColliderComponent collider = cell.get(i);
+                    if (collider.gridStamp != stamp) {
+                        collider.gridStamp = stamp;
+                        result.add(collider);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * collect all colliders in cells overlapping an area without changing the grid
+     * a collider spanning multiple cells may be returned more than once
+     * safe for concurrent readers, as long as nobody changes the grid (call prepare() first)
+     *
+     * @param minX
+     *      left
+     * @param minY
+     *      top
+     * @param maxX
+     *      right
+     * @param maxY
+     *      bottom
+     * @param result
+     *      list the candidates will be added to
+     */
+    public void collect(double minX, double minY, double maxX, double maxY, List<ColliderComponent> result) {
+        int minColumn = column(minX);
+        int maxColumn = column(maxX);
+        int minRow = row(minY);
+        int maxRow = row(maxY);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                int index = row * columns + column;
+                for (int i = staticStart[index]; i < staticStart[index + 1]; i++) {
+                    result.add(staticCells[i]);
+                }
+                result.addAll(cells.get(index));
+            }
+        }
+    }
+
+    /**
+     * rebuild the static index if necessary
+     * has to be called before concurrent reads
+     */
+    public void prepare() {
+        if (staticDirty) {
+            buildStatic();
+        }
+    }
+
+    /**
+     * insert or move a static collider
+     * the static index will be rebuilt on next query
+     *
+     * @param collider
+     *      static collider
+     */
+    private void updateStatic(ColliderComponent collider) {
+        AABB box = collider.getValue();
+        int minColumn = column(box.minX);
+        int maxColumn = column(box.maxX);
+        int minRow = row(box.minY);
+        int maxRow = row(box.maxY);
+
+        if (collider.inGrid) {
+            // still in the same cells
+            if (minColumn == collider.minColumn && maxColumn == collider.maxColumn &&
+                minRow == collider.minRow && maxRow == collider.maxRow) {
+                return;
+            }
+        } else {
+            collider.staticIndex = staticColliders.size();
+            staticColliders.add(collider);
+            collider.inGrid = true;
+        }
+        collider.minColumn = minColumn;
+        collider.maxColumn = maxColumn;
+        collider.minRow = minRow;
+        collider.maxRow = maxRow;
+        staticDirty = true;
+    }
+
+    /**
+     * build the static index
+     * counts the colliders per cell first, then fills one flat array cell by cell
+     */
+    private void buildStatic() {
+        int cellCount = columns * rows;
+        int[] start = new int[cellCount + 1];
+
+        // count colliders per cell (shifted by one)
+        for (ColliderComponent collider : staticColliders) {
+            collider.minColumn = column(collider.getValue().minX);
+            collider.maxColumn = column(collider.getValue().maxX);
+            collider.minRow = row(collider.getValue().minY);
+            collider.maxRow = row(collider.getValue().maxY);
+            for (int row = collider.minRow; row <= collider.maxRow; row++) {
+                for (int column = collider.minColumn; column <= collider.maxColumn; column++) {
+                    start[row * columns + column + 1]++;
+                }
+            }
+        }
+
+        // prefix sum: first slot of every cell
+        for (int i = 0; i < cellCount; i++) {
+            start[i + 1] += start[i];
+        }
+
+        // fill
+        ColliderComponent[] colliders = new ColliderComponent[start[cellCount]];
+        int[] next = Arrays.copyOf(start, cellCount);
+        for (ColliderComponent collider : staticColliders) {
+            for (int row = collider.minRow; row <= collider.maxRow; row++) {
+                for (int column = collider.minColumn; column <= collider.maxColumn; column++) {
+                    colliders[next[row * columns + column]++] = collider;
+                }
+            }
+        }
+
+        staticCells = colliders;
+        staticStart = start;
+        staticDirty = false;
+    }
+
+    /**
+     * helper function to get the clamped column of a x-position
+     *
+     * @param x
+     *      x-position
+     * @return
+     *      column
+     */
+    private int column(double x) {
+        int column = (int) Math.floor(x / cellSize);
+        return Math.min(Math.max(column, 0), columns - 1);
+    }
+
+    /**
+     * helper function to get the clamped row of a y-position
+     *
+     * @param y
+     *      y-position
+     * @return
+     *      row
+     */
+    private int row(double y) {
+        int row = (int) Math.floor(y / cellSize);
+        return Math.min(Math.max(row, 0), rows - 1);
+    }
+}
@@ -0,0 +1,64 @@
+package ecs.collision;
+
+/**
+ * keys of unbounded square grids
+ *
+ * a cell (column, row) is packed into one long: column in the high 32 bits, row in the low 32 bits
+ * used for the grids of scene regions, light cells and static mesh chunks
+ */
+public final class GridKey {
+
+    private GridKey() {}
+
+    /**
+     * get the column or row of a position
+     *
+     * @param position
+     *      x- or y-position
+     * @param cellSize
+     *      cell size
+     * @return
+     *      column or row
+     */
+    public static long cell(double position, double cellSize) {
+        return (long) Math.floor(position / cellSize);
+    }
+
+    /**
+     * get the key of a cell
+     *
+     * @param column
+     *      cell column
+     * @param row
+     *      cell row
+     * @return
+     *      cell key
+     */
+    public static long key(long column, long row) {
+        return (column << 32) ^ (row & 0xffffffffL);
+    }
+
+    /**
+     * get the column of a cell key
+     *
+     * @param key
+     *      cell key
+     * @return
+     *      column
+     */
+    public static long column(long key) {
+        return key >> 32;
+    }
+
+    /**
+     * get the row of a cell key
+     *
+     * @param key
+     *      cell key
+     * @return
+     *      row
+     */
+    public static long row(long key) {
+        return (int) key;
+    }
+}
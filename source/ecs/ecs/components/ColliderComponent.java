@@ -1,10 +1,8 @@
 package ecs.ecs.components;
 
+import ecs.collision.AABB;
+import ecs.collision.CollisionGrid;
 import javafx.geometry.Point3D;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.PhongMaterial;
-import javafx.scene.shape.Box;
-import javafx.scene.transform.Rotate;
 
 /**
  * collider component
@@ -13,12 +11,25 @@ import javafx.scene.transform.Rotate;
  * it indicates entity as "solid", otherwise player etc. will move over it
  * MovementSystem will check collisions of entities against this component
  * check MovementSystem for more information
+ *
+ * the collider is a plain axis aligned bounding box, it is not part of the scene-graph
+ * every translation updates the collision grid (broadphase)
+ *
+ * static colliders (e.g. level blocks) must never move,
+ * they are kept in a separate precomputed index of the collision grid
  */
-public class ColliderComponent extends Component<Box> {
+public class ColliderComponent extends Component<AABB> {
     // colliding shape
-    public Box shape;
-    // make collider transparent
-    private Color color = Color.TRANSPARENT;
+    public AABB shape;
+
+    // collider never moves
+    private final boolean isStatic;
+
+    // occupied cells, query stamp and index in the static colliders, maintained by CollisionGrid
+    public boolean inGrid = false;
+    public int minColumn, maxColumn, minRow, maxRow;
+    public int gridStamp = 0;
+    public int staticIndex = -1;
 
     /**
      * constructor
@@ -28,11 +39,31 @@ public class ColliderComponent extends Component<Box> {
      * @param depth
      */
     public ColliderComponent(double width, double height, double depth) {
-        Box shape = new Box(width, height, depth);
-        PhongMaterial material = new PhongMaterial();
-        material.setDiffuseColor(color);
-        shape.setMaterial(material);
-        this.shape = shape;
+        this(width, height, depth, false);
+    }
+
+    /**
+     * constructor
+     *
+     * @param width
+     * @param height
+     * @param depth
+     * @param isStatic
+     *      collider never moves
+     */
+    public ColliderComponent(double width, double height, double depth, boolean isStatic) {
+        this.shape = new AABB(width, height, depth);
+        this.isStatic = isStatic;
+    }
+
+    /**
+     * check if the collider is static
+     *
+     * @return
+     *      boolean
+     */
+    public boolean isStatic() {
+        return isStatic;
     }
 
     /**
@@ -46,35 +77,27 @@ public class ColliderComponent extends Component<Box> {
      *      z-position
      */
     public void translate(double x, double y, double z){
-        this.shape.setTranslateX(x);
-        this.shape.setTranslateY(y);
-        this.shape.setTranslateZ(z);
+        this.shape.setPosition(x, y, z);
+        CollisionGrid.getInstance().update(this);
     }
 
     public void translateX(double x){
-        this.shape.setTranslateX(x);
+        this.shape.setX(x);
+        CollisionGrid.getInstance().update(this);
     }
 
     public void translateY(double y){
-        this.shape.setTranslateY(y);
+        this.shape.setY(y);
+        CollisionGrid.getInstance().update(this);
     }
 
     public void translateZ(double z){
-        this.shape.setTranslateZ(z);
+        this.shape.setZ(z);
     }
 
     public void translate(Point3D position){
-        shape.setTranslateX(position.getX());
-        shape.setTranslateY(position.getY());
-        shape.setTranslateZ(position.getZ());
-    }
-
-    public void rotate(Point3D rotation){
-        Rotate xRotate = new Rotate(rotation.getX(), Rotate.X_AXIS);
-        Rotate yRotate = new Rotate(rotation.getY(), Rotate.Y_AXIS);
-        Rotate zRotate = new Rotate(rotation.getZ(), Rotate.Z_AXIS);
-        shape.getTransforms().clear();
-        shape.getTransforms().addAll(xRotate,yRotate,zRotate);
+        shape.setPosition(position.getX(), position.getY(), position.getZ());
+        CollisionGrid.getInstance().update(this);
     }
 
     /**
@@ -84,7 +107,7 @@ public class ColliderComponent extends Component<Box> {
      *      collider shape
      */
     @Override
-    public void setValue(Box value) {
+    public void setValue(AABB value) {
 
     }
 
@@ -95,7 +118,7 @@ public class ColliderComponent extends Component<Box> {
      *      collider shape
      */
     @Override
-    public Box getValue() {
+    public AABB getValue() {
         return this.shape;
     }
 }
@@ -1,5 +1,6 @@
 package ecs.ecs.components;
 
+import ecs.ecs.entities.Entity;
 import ecs.ecs.entities.State;
 
 /**
@@ -19,6 +20,9 @@ public abstract class Component<T> {
     // needed to flag component as new one
     protected State state = State.UPDATE;
 
+    // entity this component was added to
+    protected Entity entity;
+
     /**
      * constructor
      */
@@ -46,6 +50,27 @@ public abstract class Component<T> {
         this.state = state;
     }
 
+    /**
+     * get the entity this component belongs to
+     *
+     * @return
+     *      entity or null if not added yet
+     */
+    public Entity getEntity() {
+        return entity;
+    }
+
+    /**
+     * set the entity this component belongs to
+     * will be called on entity.addComponent()
+     *
+     * @param entity
+     *      entity
+     */
+    public void setEntity(Entity entity) {
+        this.entity = entity;
+    }
+
     /**
      * generic getter
      *
@@ -5,11 +5,16 @@ package ecs.ecs.components;
  *
  * add gravity to entity
  * data stored has no functionality
+ *
+ * packed: the enabled state is stored as factor (field SCALE, 1 or 0) for the bulk loop of the GravitySystem
  */
-public class GravityComponent extends Component<Boolean> {
+public class GravityComponent extends PackedComponent<Boolean> {
+    // fields
+    public static final int SCALE = 0;
 
     public GravityComponent() {
-
+        super(1);
+        data[SCALE][row] = 1;
     }
 
     @Override
@@ -19,6 +24,18 @@ public class GravityComponent extends Component<Boolean> {
 
     @Override
     public void setValue(Boolean value) {
-        this.enabled = value;
+        setEnabled(value);
+    }
+
+    /**
+     * override setEnabled to update the scale field
+     *
+     * @param enabled
+     *      state
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        data[SCALE][row] = enabled ? 1 : 0;
     }
 }
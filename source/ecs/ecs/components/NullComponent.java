@@ -1,17 +1,25 @@
 package ecs.ecs.components;
 
+import ecs.ecs.entities.State;
+
 /**
  * faker component
- * will be instantiated and returned if
- * EntityManager.hasComponent() can not find a component
+ * a shared instance will be returned if
+ * EntityManager.getComponent() can not find a component
  * purpose of this is that entity.getComponent(XyzComponent.class).getValue())
  * does not provoke a NullPointerException when using generic getter
  *
  * NullPointerException with typecasting:    System.out.println(((NameComponent) playerECS.getComponent(NameComponent.class)).name);
  * no exception with generic getter: System.out.println(playerECS.getComponent(NameComponent.class).getValue());
+ *
+ * the shared instance is never modified, all setters are ignored
+ * hot paths should use entity.tryGetComponent() instead and check for null
  */
 public class NullComponent extends Component {
 
+    // shared instance, prevents allocation on every missing component
+    public static final NullComponent INSTANCE = new NullComponent();
+
     public NullComponent() {
 
     }
@@ -25,4 +33,14 @@ public class NullComponent extends Component {
     public void setValue(Object value) {
 
     }
+
+    @Override
+    public void setState(State state) {
+
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+
+    }
 }
@@ -0,0 +1,82 @@
+package ecs.ecs.components;
+
+/**
+ * abstract component with primitive (double) fields stored structure-of-arrays
+ *
+ * as long as the component is not stored in an archetype, its fields are kept in a local array
+ * once it is stored, its fields live in the primitive columns of the archetype (data[field][row]),
+ * so systems can run tight loops over contiguous double[] columns of all entities
+ * (see Archetype.getPacked(), GravitySystem, MovementSystem)
+ *
+ * the component keeps reading and writing its own row, bind() and unbind() are called by the archetype
+ */
+public abstract class PackedComponent<T> extends Component<T> {
+
+    // field storage, local or the columns of an archetype
+    protected double[][] data;
+
+    // row in data
+    protected int row = 0;
+
+    /**
+     * constructor
+     *
+     * @param fields
+     *      number of double fields
+     */
+    protected PackedComponent(int fields) {
+        data = new double[fields][1];
+    }
+
+    /**
+     * get the number of fields
+     *
+     * @return
+     *      fields
+     */
+    public int getFieldCount() {
+        return data.length;
+    }
+
+    /**
+     * check if the component is stored in the given columns
+     *
+     * @param data
+     *      columns
+     * @return
+     *      boolean
+     */
+    public boolean isBoundTo(double[][] data) {
+        return this.data == data;
+    }
+
+    /**
+     * move the fields to a row of the given columns
+     * called by the archetype when the component is stored or its row changes
+     *
+     * @param target
+     *      columns
+     * @param targetRow
+     *      row
+     */
+    public void bind(double[][] target, int targetRow) {
+        for (int field = 0; field < data.length; field++) {
+            target[field][targetRow] = data[field][row];
+        }
+        data = target;
+        row = targetRow;
+    }
+
+    /**
+     * move the fields back to local storage
+     * called by the archetype when the component is removed
+     */
+    public void unbind() {
+        double[][] local = new double[data.length][1];
+        for (int field = 0; field < data.length; field++) {
+            local[field][0] = data[field][row];
+        }
+        data = local;
+        row = 0;
+    }
+}
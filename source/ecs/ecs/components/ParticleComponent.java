@@ -0,0 +1,26 @@
+package ecs.ecs.components;
+
+/**
+ * particle component
+ *
+ * flag entity as particle (e.g. debris, projectiles):
+ * it moves without collision detection and never falls asleep,
+ * the MovementSystem integrates all particles in bulk loops over the primitive columns
+ * data stored has no functionality
+ */
+public class ParticleComponent extends Component<Boolean> {
+
+    public ParticleComponent() {
+
+    }
+
+    @Override
+    public Boolean getValue() {
+        return enabled;
+    }
+
+    @Override
+    public void setValue(Boolean value) {
+        this.enabled = value;
+    }
+}
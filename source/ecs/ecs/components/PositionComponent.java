@@ -1,20 +1,38 @@
 package ecs.ecs.components;
 
+import ecs.ecs.entities.ChangedSet;
+import ecs.ecs.entities.EntityManager;
 import javafx.geometry.Point3D;
 
 /**
  * position component
  *
  * stores position of entity
+ * and the position of the previous tick for interpolated rendering
+ * changes are flagged, so shapes and lights are only placed when the position has changed
+ * a position is added to the changed set when its flag is set (see ChangedSet),
+ * so systems only touch the entities whose position has changed
+ *
+ * the position is stored as primitives and changed in place (set, add),
+ * getValue() and getPrevious() create a Point3D on every call, avoid them in hot paths
+ *
+ * packed: stored in the primitive columns of the archetype (fields X .. CHANGED)
  */
-public class PositionComponent extends Component<Point3D> {
-    private Point3D position;
+public class PositionComponent extends PackedComponent<Point3D> {
+    // fields
+    public static final int X = 0, Y = 1, Z = 2;
+    public static final int PREVIOUS_X = 3, PREVIOUS_Y = 4, PREVIOUS_Z = 5;
+    // position has changed since it was applied to the shape or light (1 or 0)
+    public static final int CHANGED = 6;
+
+    // positions with a set changed flag
+    public static final ChangedSet CHANGES = EntityManager.getChangedSet(PositionComponent.class);
 
     /**
      * plain constructor
      */
     public PositionComponent() {
-        this.position = new Point3D(0, 0, 0);
+        this(0, 0, 0);
     }
 
     /**
@@ -24,7 +42,64 @@ public class PositionComponent extends Component<Point3D> {
      * @param z
      */
     public PositionComponent(double x, double y, double z) {
-        this.position = new Point3D(x, y, z);
+        super(7);
+        set(x, y, z);
+        storePrevious();
+    }
+
+    public double getX() {
+        return data[X][row];
+    }
+
+    public double getY() {
+        return data[Y][row];
+    }
+
+    public double getZ() {
+        return data[Z][row];
+    }
+
+    public double getPreviousX() {
+        return data[PREVIOUS_X][row];
+    }
+
+    public double getPreviousY() {
+        return data[PREVIOUS_Y][row];
+    }
+
+    public double getPreviousZ() {
+        return data[PREVIOUS_Z][row];
+    }
+
+    /**
+     * set the position
+     *
+     * @param x
+     *      x-position
+     * @param y
+     *      y-position
+     * @param z
+     *      z-position
+     */
+    public void set(double x, double y, double z) {
+        data[X][row] = x;
+        data[Y][row] = y;
+        data[Z][row] = z;
+        markChanged();
+    }
+
+    /**
+     * move the position
+     *
+     * @param x
+     *      x-distance
+     * @param y
+     *      y-distance
+     * @param z
+     *      z-distance
+     */
+    public void add(double x, double y, double z) {
+        set(getX() + x, getY() + y, getZ() + z);
     }
 
     /**
@@ -35,18 +110,76 @@ public class PositionComponent extends Component<Point3D> {
      */
     @Override
     public void setValue(Point3D value) {
-        this.position = value;
+        set(value.getX(), value.getY(), value.getZ());
     }
 
     /**
      * override getValue to return a point
      *
      * @return
-     *      point
+     *      point (new instance)
      */
     @Override
     public Point3D getValue() {
-        return position;
+        return new Point3D(getX(), getY(), getZ());
+    }
+
+    /**
+     * remember the current position as previous position
+     * called once per tick, before the entity moves
+     */
+    public void storePrevious() {
+        data[PREVIOUS_X][row] = data[X][row];
+        data[PREVIOUS_Y][row] = data[Y][row];
+        data[PREVIOUS_Z][row] = data[Z][row];
+    }
+
+    /**
+     * get the position of the previous tick
+     *
+     * @return
+     *      point (new instance)
+     */
+    public Point3D getPrevious() {
+        return new Point3D(getPreviousX(), getPreviousY(), getPreviousZ());
+    }
+
+    /**
+     * check if the position differs from the previous tick
+     *
+     * @return
+     *      boolean
+     */
+    public boolean hasMoved() {
+        return getX() != getPreviousX() || getY() != getPreviousY() || getZ() != getPreviousZ();
+    }
+
+    /**
+     * check if the position has changed since the last clearChanged()
+     *
+     * @return
+     *      boolean
+     */
+    public boolean isChanged() {
+        return data[CHANGED][row] != 0;
     }
 
+    /**
+     * set the changed flag, the position is added to the changed set if the flag was not set
+     * called by set(), bulk loops writing the columns directly have to call it for the rows they change
+     */
+    public void markChanged() {
+        if (data[CHANGED][row] == 0) {
+            data[CHANGED][row] = 1;
+            CHANGES.add(this);
+        }
+    }
+
+    /**
+     * mark the position as applied to the scene
+     * the consumer of the changed set drops the position, it is added again on the next change
+     */
+    public void clearChanged() {
+        data[CHANGED][row] = 0;
+    }
 }
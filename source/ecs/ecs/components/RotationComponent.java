@@ -6,10 +6,14 @@ import javafx.geometry.Point3D;
  * rotation component
  *
  * stores rotation of an entity
+ * changes are flagged, so shapes are only rotated when the rotation has changed
  */
 public class RotationComponent extends Component<Point3D> {
     private Point3D rotation;
 
+    // rotation has changed since it was applied to the shape
+    private boolean changed = true;
+
     /**
      * plain constructor
      */
@@ -34,6 +38,7 @@ public class RotationComponent extends Component<Point3D> {
     @Override
     public void setValue(Point3D value) {
         this.rotation = value;
+        this.changed = true;
     }
 
     /**
@@ -47,4 +52,21 @@ public class RotationComponent extends Component<Point3D> {
         return rotation;
     }
 
+    /**
+     * check if the rotation has changed since the last clearChanged()
+     *
+     * @return
+     *      boolean
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * mark the rotation as applied to the scene
+     */
+    public void clearChanged() {
+        this.changed = false;
+    }
+
 }
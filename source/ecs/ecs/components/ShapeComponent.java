@@ -4,6 +4,7 @@ import javafx.geometry.Point3D;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Box;
+import javafx.scene.transform.Affine;
 import javafx.scene.transform.Rotate;
 
 /**
@@ -14,6 +15,9 @@ import javafx.scene.transform.Rotate;
 public class ShapeComponent extends Component<Box> {
     public Box shape;
 
+    // rotation of the shape, created on the first rotation and reused
+    private Affine rotation = null;
+
     /**
      * constructor
      *
@@ -74,15 +78,19 @@ public class ShapeComponent extends Component<Box> {
 
     /**
      * rotate function
+     * rotates around the x-, y- and z-axis (in this order) using a single transform per shape
      *
      * @param rotation
      */
     public void rotate(Point3D rotation){
-        Rotate xRotate = new Rotate(rotation.getX(), Rotate.X_AXIS);
-        Rotate yRotate = new Rotate(rotation.getY(), Rotate.Y_AXIS);
-        Rotate zRotate = new Rotate(rotation.getZ(), Rotate.Z_AXIS);
-        shape.getTransforms().clear();
-        shape.getTransforms().addAll(xRotate,yRotate,zRotate);
+        if (this.rotation == null) {
+            this.rotation = new Affine();
+            shape.getTransforms().add(this.rotation);
+        }
+        this.rotation.setToIdentity();
+        this.rotation.appendRotation(rotation.getX(), Point3D.ZERO, Rotate.X_AXIS);
+        this.rotation.appendRotation(rotation.getY(), Point3D.ZERO, Rotate.Y_AXIS);
+        this.rotation.appendRotation(rotation.getZ(), Point3D.ZERO, Rotate.Z_AXIS);
     }
 
     /**
@@ -0,0 +1,61 @@
+package ecs.ecs.components;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+
+/**
+ * static shape component
+ *
+ * a visible box for entities that never move or rotate (e.g. level blocks)
+ * the box is not a node of its own, StaticMeshSystem merges all static shapes
+ * of a chunk with the same material into a single mesh
+ */
+public class StaticShapeComponent extends Component<PhongMaterial> {
+    // dimension
+    public double width, height, depth;
+
+    // material
+    private PhongMaterial material;
+
+    // chunk and material the shape was merged into, maintained by StaticMeshSystem
+    public long chunk;
+    public PhongMaterial chunkMaterial;
+
+    /**
+     * constructor
+     *
+     * @param width
+     * @param height
+     * @param depth
+     * @param color
+     */
+    public StaticShapeComponent(double width, double height, double depth, Color color) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.material = new PhongMaterial(color);
+    }
+
+    /**
+     * override setValue to store the material
+     * shapes sharing a material instance share a mesh
+     *
+     * @param value
+     *      material
+     */
+    @Override
+    public void setValue(PhongMaterial value) {
+        this.material = value;
+    }
+
+    /**
+     * override getValue to return the material
+     *
+     * @return
+     *      material
+     */
+    @Override
+    public PhongMaterial getValue() {
+        return material;
+    }
+}
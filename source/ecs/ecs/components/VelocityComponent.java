@@ -6,15 +6,31 @@ import javafx.geometry.Point3D;
  * velocity component
  *
  * adds velocity to the entity, so it can move
+ *
+ * entities whose velocity stays zero for Settings.getSleepTicks() ticks fall asleep,
+ * sleeping entities are skipped by movement and gravity until they are woken up
+ * (non-zero velocity set, being hit, a collider removed)
+ *
+ * the velocity is stored as primitives and changed in place (set, add),
+ * getValue() creates a Point3D on every call, avoid it in hot paths
+ *
+ * packed: stored in the primitive columns of the archetype (fields X .. ACTIVE)
  */
-public class VelocityComponent extends Component<Point3D> {
-    public Point3D velocity;
+public class VelocityComponent extends PackedComponent<Point3D> {
+    // fields
+    public static final int X = 0, Y = 1, Z = 2;
+    // component is enabled and the entity is awake (1 or 0), usable as factor in bulk loops
+    public static final int ACTIVE = 3;
+
+    // sleep state, maintained by MovementSystem
+    public int idleTicks = 0;
+    private boolean sleeping = false;
 
     /**
      * plain constructor
      */
     public VelocityComponent() {
-        velocity = new Point3D(0,0, 0);
+        this(0, 0, 0);
     }
 
     /**
@@ -23,7 +39,7 @@ public class VelocityComponent extends Component<Point3D> {
      * @param velocity
      */
     public VelocityComponent(Point3D velocity) {
-        this.velocity = velocity;
+        this(velocity.getX(), velocity.getY(), velocity.getZ());
     }
 
     /**
@@ -33,7 +49,67 @@ public class VelocityComponent extends Component<Point3D> {
      * @param zVector
      */
     public VelocityComponent(double xVector, double yVector, double zVector) {
-        velocity = new Point3D(xVector, yVector, zVector);
+        super(4);
+        data[X][row] = xVector;
+        data[Y][row] = yVector;
+        data[Z][row] = zVector;
+        data[ACTIVE][row] = 1;
+    }
+
+    public double getX() {
+        return data[X][row];
+    }
+
+    public double getY() {
+        return data[Y][row];
+    }
+
+    public double getZ() {
+        return data[Z][row];
+    }
+
+    /**
+     * check if the velocity is zero
+     *
+     * @return
+     *      boolean
+     */
+    public boolean isZero() {
+        return getX() == 0 && getY() == 0 && getZ() == 0;
+    }
+
+    /**
+     * set velocity
+     * a non-zero velocity wakes a sleeping entity
+     *
+     * @param x
+     *      x-velocity
+     * @param y
+     *      y-velocity
+     * @param z
+     *      z-velocity
+     */
+    public void set(double x, double y, double z) {
+        data[X][row] = x;
+        data[Y][row] = y;
+        data[Z][row] = z;
+        if (sleeping && !isZero()) {
+            wake();
+        }
+    }
+
+    /**
+     * add velocity (!= set velocity)
+     *
+     * @param x
+     *      x-velocity
+     * @param y
+     *      y-velocity
+     * @param z
+     *      z-velocity
+     */
+    public void add(double x, double y, double z) {
+        set(getX() + x, getY() + y, getZ() + z);
     }
 
     /**
@@ -42,28 +118,75 @@ public class VelocityComponent extends Component<Point3D> {
      * @param addVelocity
      */
     public void addValue(Point3D addVelocity) {
-        this.velocity = new Point3D(velocity.getX() + addVelocity.getX(), velocity.getY() + addVelocity.getY(), velocity.getZ() + addVelocity.getZ());
+        add(addVelocity.getX(), addVelocity.getY(), addVelocity.getZ());
+    }
+
+    /**
+     * check if the entity is sleeping
+     *
+     * @return
+     *      boolean
+     */
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    /**
+     * put the entity to sleep
+     */
+    public void sleep() {
+        sleeping = true;
+        updateActive();
+    }
+
+    /**
+     * wake the entity up
+     */
+    public void wake() {
+        sleeping = false;
+        idleTicks = 0;
+        updateActive();
+    }
+
+    /**
+     * override setEnabled to update the active field
+     *
+     * @param enabled
+     *      state
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        updateActive();
+    }
+
+    /**
+     * helper function to update the active field
+     */
+    private void updateActive() {
+        data[ACTIVE][row] = enabled && !sleeping ? 1 : 0;
     }
 
     /**
      * override getValue to return a point
      *
      * @return
-     *      point
+     *      point (new instance)
      */
     @Override
     public Point3D getValue() {
-        return velocity;
+        return new Point3D(getX(), getY(), getZ());
     }
 
     /**
      * override setValue to store a point
+     * a non-zero velocity wakes a sleeping entity
      *
      * @param value
      *      point
      */
     @Override
     public void setValue(Point3D value) {
-        this.velocity = value;
+        set(value.getX(), value.getY(), value.getZ());
     }
 }
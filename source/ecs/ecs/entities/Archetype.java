@@ -0,0 +1,342 @@
+package ecs.ecs.entities;
+
+import ecs.ecs.components.Component;
+import ecs.ecs.components.PackedComponent;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * archetype (chunk) stores all entities sharing the same set of component classes
+ *
+ * components are stored column-wise: one contiguous array per component class
+ * systems iterate all archetypes matching their component set
+ * and walk the rows, instead of probing hashmaps per entity
+ *
+ * rows are kept dense, removing an entity moves the last row into the gap
+ * column arrays may be reallocated on growth, so never keep a column across structural changes
+ *
+ * the fields of packed components (see PackedComponent) are additionally stored in primitive columns,
+ * one double[] per field, so systems can run tight loops without touching the component objects
+ */
+public class Archetype {
+
+    // initial row capacity
+    private static final int INITIAL_CAPACITY = 16;
+
+    // component set of this archetype (bit = component type index)
+    private final BitSet signature;
+
+    // component type indices, sorted ascending
+    private final int[] types;
+
+    // type index -> column index, -1 if the type is not part of this archetype
+    private final int[] columnOf;
+
+    // component storage, columns[column][row]
+    private Component[][] columns;
+
+    // primitive storage of packed components, packed[column][field][row]
+    // null for plain components, created with the first packed component of a column
+    private double[][][] packed;
+
+    // entity of each row
+    private Entity[] entities;
+
+    // number of used rows
+    private int size = 0;
+
+    // cached archetype transitions when adding or removing a component type
+    private HashMap<Integer, Archetype> addTransitions = new HashMap<>();
+    private HashMap<Integer, Archetype> removeTransitions = new HashMap<>();
+
+    /**
+     * constructor
+     *
+     * @param signature
+     *      component set
+     */
+    Archetype(BitSet signature) {
+        this.signature = (BitSet) signature.clone();
+        this.types = signature.stream().toArray();
+        this.columnOf = new int[signature.length()];
+        Arrays.fill(columnOf, -1);
+        for (int column = 0; column < types.length; column++) {
+            columnOf[types[column]] = column;
+        }
+        this.columns = new Component[types.length][INITIAL_CAPACITY];
+        this.packed = new double[types.length][][];
+        this.entities = new Entity[INITIAL_CAPACITY];
+    }
+
+    /**
+     * get the component set
+     *
+     * @return
+     *      signature (do not modify)
+     */
+    BitSet getSignature() {
+        return signature;
+    }
+
+    /**
+     * get the number of entities stored
+     *
+     * @return
+     *      rows in use
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * get the entity of a row
+     *
+     * @param row
+     *      row
+     * @return
+     *      entity
+     */
+    public Entity getEntity(int row) {
+        return entities[row];
+    }
+
+    /**
+     * check if this archetype stores a component class
+     *
+     * @param component
+     *      component.class
+     * @return
+     *      boolean
+     */
+    public boolean hasColumn(Class<? extends Component> component) {
+        return hasType(EntityManager.getComponentType(component));
+    }
+
+    /**
+     * get the column of a component class
+     * rows 0 .. size()-1 are valid
+     *
+     * @param component
+     *      component.class
+     * @return
+     *      column or null if this archetype does not store the component class
+     */
+    public Component[] getColumn(Class<? extends Component> component) {
+        int type = EntityManager.getComponentType(component);
+        if (!hasType(type)) {
+            return null;
+        }
+        return columns[columnOf[type]];
+    }
+
+    /**
+     * get the primitive columns of a packed component class
+     * rows 0 .. size()-1 are valid, the field indices are defined by the component (e.g. PositionComponent.X)
+     *
+     * @param component
+     *      component.class
+     * @return
+     *      columns[field][row] or null if this archetype does not store packed components of the class
+     */
+    public double[][] getPacked(Class<? extends PackedComponent> component) {
+        int type = EntityManager.getComponentType(component);
+        if (!hasType(type)) {
+            return null;
+        }
+        return packed[columnOf[type]];
+    }
+
+    /**
+     * check if this archetype contains a component type
+     *
+     * @param type
+     *      component type index
+     * @return
+     *      boolean
+     */
+    boolean hasType(int type) {
+        return type < columnOf.length && columnOf[type] != -1;
+    }
+
+    /**
+     * get a single component
+     *
+     * @param row
+     *      row
+     * @param type
+     *      component type index
+     * @return
+     *      component or null
+     */
+    Component get(int row, int type) {
+        if (!hasType(type)) {
+            return null;
+        }
+        return columns[columnOf[type]][row];
+    }
+
+    /**
+     * replace a single component
+     *
+     * @param row
+     *      row
+     * @param type
+     *      component type index (must be part of this archetype)
+     * @param component
+     *      component
+     */
+    void set(int row, int type, Component component) {
+        int column = columnOf[type];
+        unbind(column, row);
+        columns[column][row] = component;
+        bind(column, row);
+    }
+
+    /**
+     * add an entity and copy its components from another archetype
+     *
+     * @param entity
+     *      entity
+     * @param source
+     *      previous archetype (may be null)
+     * @param sourceRow
+     *      row in previous archetype
+     * @return
+     *      row in this archetype
+     */
+    int add(Entity entity, Archetype source, int sourceRow) {
+        if (size == entities.length) {
+            grow();
+        }
+        int row = size++;
+        entities[row] = entity;
+        if (source != null) {
+            for (int column = 0; column < types.length; column++) {
+                columns[column][row] = source.get(sourceRow, types[column]);
+                bind(column, row);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * remove a row
+     * the last row is moved into the gap and its entity gets the new row
+     *
+     * @param row
+     *      row to remove
+     */
+    void remove(int row) {
+        // components not moved to another archetype keep their fields
+        for (int column = 0; column < types.length; column++) {
+            unbind(column, row);
+        }
+        int last = --size;
+        if (row != last) {
+            Entity moved = entities[last];
+            entities[row] = moved;
+            for (int column = 0; column < types.length; column++) {
+                columns[column][row] = columns[column][last];
+                bind(column, row);
+            }
+            moved.row = row;
+        }
+        // release references for the java garbage collector
+        entities[last] = null;
+        for (int column = 0; column < types.length; column++) {
+            columns[column][last] = null;
+        }
+    }
+
+    /**
+     * get (and cache) the archetype with one more component type
+     *
+     * @param type
+     *      component type index
+     * @return
+     *      archetype
+     */
+    Archetype withType(int type) {
+        Archetype target = addTransitions.get(type);
+        if (target == null) {
+            BitSet targetSignature = (BitSet) signature.clone();
+            targetSignature.set(type);
+            target = EntityManager.getArchetype(targetSignature);
+            addTransitions.put(type, target);
+        }
+        return target;
+    }
+
+    /**
+     * get (and cache) the archetype with one less component type
+     *
+     * @param type
+     *      component type index
+     * @return
+     *      archetype
+     */
+    Archetype withoutType(int type) {
+        Archetype target = removeTransitions.get(type);
+        if (target == null) {
+            BitSet targetSignature = (BitSet) signature.clone();
+            targetSignature.clear(type);
+            target = EntityManager.getArchetype(targetSignature);
+            removeTransitions.put(type, target);
+        }
+        return target;
+    }
+
+    /**
+     * double the row capacity
+     * the outer arrays of the primitive columns are kept, so bound components stay valid
+     */
+    private void grow() {
+        int capacity = entities.length * 2;
+        entities = Arrays.copyOf(entities, capacity);
+        for (int column = 0; column < types.length; column++) {
+            columns[column] = Arrays.copyOf(columns[column], capacity);
+            if (packed[column] != null) {
+                for (int field = 0; field < packed[column].length; field++) {
+                    packed[column][field] = Arrays.copyOf(packed[column][field], capacity);
+                }
+            }
+        }
+    }
+
+    /**
+     * helper function to move the fields of a packed component into the primitive columns of its row
+     *
+     * @param column
+     *      column
+     * @param row
+     *      row
+     */
+    private void bind(int column, int row) {
+        Component component = columns[column][row];
+        if (!(component instanceof PackedComponent)) {
+            return;
+        }
+        PackedComponent packedComponent = (PackedComponent) component;
+        if (packed[column] == null) {
+            packed[column] = new double[packedComponent.getFieldCount()][entities.length];
+        }
+        packedComponent.bind(packed[column], row);
+    }
+
+    /**
+     * helper function to move the fields of a packed component back into the component
+     * components already bound to another archetype are skipped
+     *
+     * @param column
+     *      column
+     * @param row
+     *      row
+     */
+    private void unbind(int column, int row) {
+        Component component = columns[column][row];
+        if (component instanceof PackedComponent && ((PackedComponent) component).isBoundTo(packed[column])) {
+            ((PackedComponent) component).unbind();
+        }
+    }
+}
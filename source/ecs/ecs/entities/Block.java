@@ -8,6 +8,9 @@ import javafx.scene.paint.PhongMaterial;
 
 /**
  * block entity
+ *
+ * static blocks (level geometry) never move:
+ * their collider is static and, if not rotated, their shape is merged into a chunk mesh
  */
 public class Block extends Entity {
     int width = Settings.getBlocksize();
@@ -22,15 +25,29 @@ public class Block extends Entity {
      */
     public Block(double x, double y, double z) {
         super();
-        init(x, y, z, new Point3D(0,0,0));
+        init(x, y, z, new Point3D(0,0,0), false);
     }
 
     public Block(double x, double y, double z, Point3D rotation) {
         super();
-        init(x, y, z, rotation);
+        init(x, y, z, rotation, false);
     }
 
-    private void init(double x, double y, double z, Point3D rotation) {
+    /**
+     * constructor for blocks
+     * @param x
+     * @param y
+     * @param z
+     * @param rotation
+     * @param isStatic
+     *      block never moves (level geometry)
+     */
+    public Block(double x, double y, double z, Point3D rotation, boolean isStatic) {
+        super();
+        init(x, y, z, rotation, isStatic);
+    }
+
+    private void init(double x, double y, double z, Point3D rotation, boolean isStatic) {
         // shape: add some randomness to depth
         if (Settings.fancyBlocks()) {
             double randomDepth = Math.random() * 50;
@@ -39,8 +56,13 @@ public class Block extends Entity {
 
         addComponent(new PositionComponent(x, y, z));
         addComponent(new RotationComponent(rotation));
-        addComponent(new ShapeComponent(width, height, depth, color));
-        addComponent(new ColliderComponent(width, height, depth));
+        // static blocks without rotation are merged into chunk meshes
+        if (isStatic && rotation.magnitude() == 0) {
+            addComponent(new StaticShapeComponent(width, height, depth, color));
+        } else {
+            addComponent(new ShapeComponent(width, height, depth, color));
+        }
+        addComponent(new ColliderComponent(width, height, depth, isStatic));
         addComponent(new RenderComponent());
     }
 
@@ -50,6 +72,11 @@ public class Block extends Entity {
      */
     @Override
     public void setMaterial(PhongMaterial material) {
-        ((ShapeComponent) this.getComponent(ShapeComponent.class)).setMaterial(material);
+        ShapeComponent shapeComponent = tryGetComponent(ShapeComponent.class);
+        if (shapeComponent != null) {
+            shapeComponent.setMaterial(material);
+        } else {
+            getComponent(StaticShapeComponent.class).setValue(material);
+        }
     }
 }
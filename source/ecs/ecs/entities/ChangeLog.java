@@ -0,0 +1,181 @@
+package ecs.ecs.entities;
+
+import ecs.ecs.components.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * change log of a single component class
+ *
+ * the entity-manager records every added and removed component (and explicitly changed ones)
+ * at write time, stamped with the current tick
+ * systems read the log with their own reader and only touch the entities that have changed
+ * since their last run, instead of scanning all buffered entities
+ *
+ * CHANGED is only logged by Entity.updateComponent(), for changes other systems have to react to
+ * (e.g. moving an entity without velocity), value writes are not logged:
+ * changed positions are recorded in their changed set instead (see ChangedSet),
+ * which also takes the writes of parallel chunks and bulk loops
+ *
+ * entries are dropped once all readers have passed them (see EntityManager.nextTick())
+ */
+public class ChangeLog {
+
+    // kinds of changes
+    public static final byte ADDED = 0;
+    public static final byte CHANGED = 1;
+    public static final byte REMOVED = 2;
+
+    // initial number of entries
+    private static final int INITIAL_CAPACITY = 64;
+
+    // entries: component, kind of change and tick
+    private Component[] components = new Component[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private long[] ticks = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // absolute position of the first stored entry
+    private long offset = 0;
+
+    // readers of this log
+    private List<Reader> readers = new ArrayList<>();
+
+    ChangeLog() {}
+
+    /**
+     * record a change
+     *
+     * @param component
+     *      component
+     * @param kind
+     *      ADDED, CHANGED or REMOVED
+     * @param tick
+     *      current tick
+     */
+    void add(Component component, byte kind, long tick) {
+        if (size == components.length) {
+            components = Arrays.copyOf(components, size * 2);
+            kinds = Arrays.copyOf(kinds, size * 2);
+            ticks = Arrays.copyOf(ticks, size * 2);
+        }
+        components[size] = component;
+        kinds[size] = kind;
+        ticks[size] = tick;
+        size++;
+    }
+
+    /**
+     * drop all entries every reader has passed
+     * without readers all entries are dropped
+     */
+    void trim() {
+        long end = offset + size;
+        long min = end;
+        for (Reader reader : readers) {
+            min = Math.min(min, reader.cursor);
+        }
+        int passed = (int) (min - offset);
+        if (passed == 0) {
+            return;
+        }
+        int remaining = size - passed;
+        System.arraycopy(components, passed, components, 0, remaining);
+        System.arraycopy(kinds, passed, kinds, 0, remaining);
+        System.arraycopy(ticks, passed, ticks, 0, remaining);
+        // release references for the java garbage collector
+        Arrays.fill(components, remaining, size, null);
+        size = remaining;
+        offset = min;
+    }
+
+    /**
+     * create a reader
+     * the reader starts at the oldest stored entry
+     * readers should be created once and kept (e.g. by a system)
+     *
+     * @return
+     *      reader
+     */
+    public Reader newReader() {
+        Reader reader = new Reader();
+        reader.cursor = offset;
+        readers.add(reader);
+        return reader;
+    }
+
+    /**
+     * reader of a change log
+     * e.g.
+     *      while (reader.next()) {
+     *          if (reader.getKind() == ChangeLog.ADDED) ... reader.getComponent() ...
+     *      }
+     */
+    public class Reader {
+
+        // absolute position of the next entry
+        private long cursor;
+
+        // current entry (index in the log)
+        private int current = -1;
+
+        private Reader() {}
+
+        /**
+         * move to the next change
+         *
+         * @return
+         *      boolean, false if there are no more changes
+         */
+        public boolean next() {
+            if (cursor == offset + size) {
+                current = -1;
+                return false;
+            }
+            current = (int) (cursor - offset);
+            cursor++;
+            return true;
+        }
+
+        /**
+         * get the changed component
+         *
+         * @return
+         *      component
+         */
+        public Component getComponent() {
+            return components[current];
+        }
+
+        /**
+         * get the entity of the changed component
+         *
+         * @return
+         *      entity
+         */
+        public Entity getEntity() {
+            return components[current].getEntity();
+        }
+
+        /**
+         * get the kind of change
+         *
+         * @return
+         *      ADDED, CHANGED or REMOVED
+         */
+        public byte getKind() {
+            return kinds[current];
+        }
+
+        /**
+         * get the tick of the change
+         *
+         * @return
+         *      tick
+         */
+        public long getTick() {
+            return ticks[current];
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ecs.ecs.entities;
+
+import ecs.ecs.components.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * set of components of a single component class whose values have changed
+ *
+ * value writes are recorded at write time by the component (e.g. PositionComponent.set()),
+ * a component is added once when its changed flag is set and not again until the flag is cleared,
+ * so a moving entity costs one entry, not one per write
+ * writes happen on parallel chunks and in bulk loops, so add() can be called from any thread
+ *
+ * the consumer takes the new entries with drainTo() and keeps them until it clears the flag,
+ * it only touches the entities whose values have changed (see InterpolationSystem)
+ * the order of the entries is not defined
+ */
+public class ChangedSet {
+
+    // components added since the last drainTo()
+    private List<Component> components = new ArrayList<>();
+
+    ChangedSet() {}
+
+    /**
+     * add a component whose changed flag was just set
+     * can be called from any thread
+     *
+     * @param component
+     *      component
+     */
+    public synchronized void add(Component component) {
+        components.add(component);
+    }
+
+    /**
+     * move all added components to the given list
+     * consumer only
+     *
+     * @param target
+     *      list
+     */
+    public synchronized void drainTo(List<? super Component> target) {
+        target.addAll(components);
+        components.clear();
+    }
+}
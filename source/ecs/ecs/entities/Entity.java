@@ -13,6 +13,11 @@ import javafx.scene.paint.PhongMaterial;
 public abstract class Entity {
 
     // each entity needs an unique identifier
+    // compact id (slot + generation), assigned by EntityManager
+    protected long id;
+
+    // optional universally unique identifier for anything external
+    // created on first request only, UUID.randomUUID() is expensive
     protected UUID uuid;
 
     // set a state, to control rendering and garbage collection
@@ -22,25 +27,55 @@ public abstract class Entity {
     // this is only necessary on deconstruction
     List<Component> components = new ArrayList<>();
 
+    // location of the components in the entity-manager
+    // maintained by EntityManager
+    Archetype archetype;
+    int row;
+
     /**
      * constructor
      */
     public Entity() {
-        // create uuid
-        uuid = UUID.randomUUID();
         // set state
         state = State.UPDATE;
-        // store entity
-        EntityManager.addEntity(uuid, this);
-        EntityManager.updateEntity(uuid, this);
+        // store entity & get id
+        id = EntityManager.addEntity(this);
     }
 
     /**
      * flag entity to delete
+     * the entity will be removed by the garbageCollectorSystem
      */
     public void delete() {
+        if (state == State.DELETE) {
+            return;
+        }
         state = State.DELETE;
-        EntityManager.updateEntity(uuid, this);
+        EntityManager.deleteEntity(this);
+    }
+
+    /**
+     * get the id
+     *
+     * @return
+     *      id of entity
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * get the universally unique identifier
+     * will be created on first request
+     *
+     * @return
+     *      UUID of entity
+     */
+    public UUID getUUID() {
+        if (uuid == null) {
+            uuid = UUID.randomUUID();
+        }
+        return uuid;
     }
 
     /**
@@ -73,12 +108,22 @@ public abstract class Entity {
 
         // add component to local list
         components.add(component);
+        component.setEntity(this);
 
-        // add component to manager
-        EntityManager.addComponent(uuid, component);
+        // add component to manager, logged as added
+        EntityManager.addComponent(id, component);
+    }
 
-        // force update entity
-        flagToUpdate();
+    /**
+     * log a component as changed
+     * e.g. after moving an entity without velocity
+     * setters do not log, the change log only holds explicit changes (see ChangeLog, ChangedSet)
+     *
+     * @param component
+     *      component
+     */
+    public void updateComponent(Component component) {
+        EntityManager.changeComponent(component);
     }
 
     /**
@@ -90,7 +135,20 @@ public abstract class Entity {
      *      component
      */
     public Component getComponent(Class<? extends Component> component) {
-        return EntityManager.getComponent(uuid, component);
+        return EntityManager.getComponent(id, component);
+    }
+
+    /**
+     * returns the requested component, typed
+     * use this instead of hasComponent() & getComponent()
+     *
+     * @param component
+     *      component.class
+     * @return
+     *      component or null if the entity has no such component
+     */
+    public <T extends Component> T tryGetComponent(Class<T> component) {
+        return EntityManager.tryGetComponent(id, component);
     }
 
     /**
@@ -117,22 +175,11 @@ public abstract class Entity {
         // remove component from manager
         // DEPRECATED, will be done by garbageCollectorSystem
         // because e.g. removing a renderComponent does not unrender the entity
-//        EntityManager.removeComponent(uuid, component);
-
-        // instead flag component to delete
-        component.setState(State.DELETE);
+//        EntityManager.removeComponent(id, component);
 
-        // force update entity
-        flagToUpdate();
-    }
-
-    /**
-     * helper function to flag entity for update
-     */
-    private void flagToUpdate() {
-        if (state != State.UPDATE) {
-            state = State.UPDATE;
-            EntityManager.updateEntity(uuid, this);
+        // instead flag component to delete, logged as removed
+        if (component.getState() != State.DELETE) {
+            EntityManager.flagComponent(component);
         }
     }
 
@@ -144,7 +191,7 @@ public abstract class Entity {
      *      boolean
      */
     public boolean hasComponent(Class<? extends Component> component) {
-        return EntityManager.hasComponent(uuid, component);
+        return EntityManager.hasComponent(id, component);
     }
 
     /**
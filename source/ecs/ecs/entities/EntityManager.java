@@ -2,12 +2,24 @@ package ecs.ecs.entities;
 
 import ecs.ecs.components.Component;
 import ecs.ecs.components.NullComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.UUID;
+import java.util.List;
 
 /**
  * entity manager stores all entities and components of entities
- * ordered in hashmaps by component.class
+ * components are stored in archetypes (entities with the same component set share one archetype)
+ * check Archetype for more information
+ *
+ * entities are addressed by a compact id (handle): slot index (low 32 bits) + generation (high 32 bits)
+ * slots of deleted entities are recycled, the generation is increased on every release,
+ * so ids of deleted entities (stale handles) can be detected
+ *
+ * changes are recorded per component class at write time (see ChangeLog),
+ * systems read the logs of the component classes they are interested in
+ * changed values are recorded per component class by the components themselves (see ChangedSet)
  *
  * this is a singleton
  * https://www.tutorialspoint.com/java/java_using_singleton.htm
@@ -17,17 +29,49 @@ public class EntityManager {
     // store an instance of itself
     private static EntityManager entityManager = new EntityManager();
 
-    // storage for all entities
-    public static HashMap<UUID, Entity> entities = new HashMap<>();
+    // initial number of entity slots
+    private static final int INITIAL_SLOTS = 1024;
+
+    // storage for all entities, indexed by slot
+    private static Entity[] slots = new Entity[INITIAL_SLOTS];
+    // current generation of each slot
+    private static int[] generations = new int[INITIAL_SLOTS];
+    // number of slots ever used
+    private static int slotCount = 0;
+    // released slots, ready to be recycled
+    private static int[] freeSlots = new int[INITIAL_SLOTS];
+    private static int freeCount = 0;
+    // number of living entities
+    private static int entityCount = 0;
+
+    // current tick, stamps the changes
+    private static long tick = 0;
 
-    // storage for recently changed entities
-    // needed for e.g. unrender, since render does not compute on every tick
-    // or deleting entities/components
-    public static HashMap<UUID, Entity> entitiesUpdateBuffer = new HashMap<>();
+    // change log per component type index
+    private static List<ChangeLog> changeLogs = new ArrayList<>();
+
+    // components with changed values per component class (see ChangedSet)
+    private static HashMap<Class, ChangedSet> changedSets = new HashMap<>();
+
+    // components flagged to remove and entities flagged to delete
+    // processed (and cleared) by the GarbageCollectorSystem
+    public static List<Component> componentRemovalBuffer = new ArrayList<>();
+    public static List<Entity> entityDeletionBuffer = new ArrayList<>();
+
+    // every component.class gets a compact type index
+    // the index is used as bit in the archetype signature
+    private static HashMap<Class, Integer> componentTypes = new HashMap<>();
 
     // storage for components of entities
-    // ordered by component for systems iteration
-    public static HashMap<Class, HashMap<UUID, Component>> components = new HashMap<>();
+    // one archetype per component set, for systems iteration
+    private static HashMap<BitSet, Archetype> archetypes = new HashMap<>();
+    private static List<Archetype> archetypeList = new ArrayList<>();
+
+    // registered queries, updated when new archetypes are created
+    private static List<Query> queries = new ArrayList<>();
+
+    // archetype of entities without any component
+    private static Archetype emptyArchetype = getArchetype(new BitSet());
 
     /** A private Constructor prevents any other
      * class from instantiating.
@@ -43,128 +87,380 @@ public class EntityManager {
 
     /**
      * puts the entity into the entity-pool
+     * a free slot will be recycled if available
      *
-     * @param uuid
-     *      UUID of entity
      * @param entity
      *      entity itself
+     * @return
+     *      id of entity
+     */
+    public static long addEntity(Entity entity) {
+        int index;
+        if (freeCount > 0) {
+            index = freeSlots[--freeCount];
+        } else {
+            if (slotCount == slots.length) {
+                slots = Arrays.copyOf(slots, slotCount * 2);
+                generations = Arrays.copyOf(generations, slotCount * 2);
+            }
+            index = slotCount++;
+        }
+        slots[index] = entity;
+        entityCount++;
+
+        entity.archetype = emptyArchetype;
+        entity.row = emptyArchetype.add(entity, null, 0);
+
+        return ((long) generations[index] << 32) | index;
+    }
+
+    /**
+     * removes the entity and all its components from the entity-pool
+     * the slot will be recycled, the id becomes stale
+     *
+     * @param id
+     *      id of entity
      */
-    public static void addEntity(UUID uuid, Entity entity) {
-        entities.put(uuid, entity);
+    public static void removeEntity(long id) {
+        Entity entity = getEntity(id);
+        if (entity == null) {
+            return;
+        }
+        if (entity.archetype != null) {
+            entity.archetype.remove(entity.row);
+            entity.archetype = null;
+        }
+
+        // release slot
+        int index = (int) id;
+        slots[index] = null;
+        generations[index]++;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = index;
+        entityCount--;
     }
 
     /**
-     * puts the entity into update buffer to force
-     * rendering, de-rendering, deconstruction...
+     * flag an entity to delete
+     * all its components are logged as removed, the entity is removed by the GarbageCollectorSystem
      *
-     * @param uuid
-     *      UUID of entity
      * @param entity
      *      entity itself
      */
-    public static void updateEntity(UUID uuid, Entity entity) {
-        entitiesUpdateBuffer.put(uuid, entity);
+    static void deleteEntity(Entity entity) {
+        for (Component component : entity.getAllComponents()) {
+            if (component.getState() != State.DELETE) {
+                getChangeLog(component.getClass()).add(component, ChangeLog.REMOVED, tick);
+            }
+        }
+        entityDeletionBuffer.add(entity);
+    }
+
+    /**
+     * flag a component to remove
+     * the component is logged as removed, it is removed by the GarbageCollectorSystem
+     *
+     * @param component
+     *      component
+     */
+    static void flagComponent(Component component) {
+        component.setState(State.DELETE);
+        getChangeLog(component.getClass()).add(component, ChangeLog.REMOVED, tick);
+        componentRemovalBuffer.add(component);
+    }
+
+    /**
+     * log a component as changed
+     * for changes systems have to react to, e.g. moving an entity without velocity
+     * value writes are not logged, they are recorded in the changed set (see ChangedSet)
+     *
+     * @param component
+     *      component
+     */
+    static void changeComponent(Component component) {
+        getChangeLog(component.getClass()).add(component, ChangeLog.CHANGED, tick);
+    }
+
+    /**
+     * get the change log of a component class
+     *
+     * @param component
+     *      component.class
+     * @return
+     *      change log
+     */
+    public static ChangeLog getChangeLog(Class<? extends Component> component) {
+        int type = getComponentType(component);
+        while (changeLogs.size() <= type) {
+            changeLogs.add(new ChangeLog());
+        }
+        return changeLogs.get(type);
+    }
+
+    /**
+     * get the changed set of a component class
+     * can be called from any thread
+     *
+     * @param component
+     *      component.class
+     * @return
+     *      changed set
+     */
+    public static synchronized ChangedSet getChangedSet(Class<? extends Component> component) {
+        return changedSets.computeIfAbsent(component, key -> new ChangedSet());
+    }
+
+    /**
+     * get the current tick
+     *
+     * @return
+     *      tick
+     */
+    public static long getTick() {
+        return tick;
+    }
+
+    /**
+     * start the next tick
+     * changes all readers have passed are dropped
+     */
+    public static void nextTick() {
+        for (ChangeLog changeLog : changeLogs) {
+            changeLog.trim();
+        }
+        tick++;
     }
 
     /**
      * returns the entity from pool
      *
-     * @param uuid
-     *      UUID of entity
+     * @param id
+     *      id of entity
      * @return
-     *      entity itself
+     *      entity itself or null if the id is stale
+     */
+    public static Entity getEntity(long id) {
+        int index = (int) id;
+        if (index < 0 || index >= slotCount || generations[index] != (int) (id >>> 32)) {
+            return null;
+        }
+        return slots[index];
+    }
+
+    /**
+     * check if the id still belongs to a living entity
+     *
+     * @param id
+     *      id of entity
+     * @return
+     *      boolean, false if the id is stale
      */
-    public static Entity getEntity(UUID uuid) {
-        return entities.get(uuid);
+    public static boolean isAlive(long id) {
+        return getEntity(id) != null;
+    }
+
+    /**
+     * get the number of living entities
+     *
+     * @return
+     *      number of entities
+     */
+    public static int getEntityCount() {
+        return entityCount;
     }
 
     /**
      * add component
+     * moves the entity into the archetype matching its new component set
+     * a component of an already stored class replaces the old one
      *
-     * @param uuid
-     *      UUID of entity
+     * @param id
+     *      id of entity
      * @param component
      *      component
      */
-    public static void addComponent(UUID uuid, Component component) {
-        // check if there is a hashmap for this component.class
-        HashMap<UUID, Component> result = components.get(component.getClass());
-        // create hashmap & store values
-        if (result == null) {
-            components.put(component.getClass(), new HashMap<UUID, Component>(){{put(uuid, component);}});
-        }
-        // just store values
-        else {
-            components.get(component.getClass()).put(uuid, component);
+    public static void addComponent(long id, Component component) {
+        Entity entity = getEntity(id);
+        int type = getComponentType(component.getClass());
+        Archetype source = entity.archetype;
+
+        ChangeLog changeLog = getChangeLog(component.getClass());
+
+        // just replace the stored component
+        if (source.hasType(type)) {
+            Component replaced = source.get(entity.row, type);
+            if (replaced != component) {
+                replaced.setState(State.DELETE);
+                changeLog.add(replaced, ChangeLog.REMOVED, tick);
+                source.set(entity.row, type, component);
+                changeLog.add(component, ChangeLog.ADDED, tick);
+            }
+            return;
         }
+
+        // move entity to the archetype with the additional component
+        Archetype target = source.withType(type);
+        moveEntity(entity, target);
+        target.set(entity.row, type, component);
+        changeLog.add(component, ChangeLog.ADDED, tick);
     }
 
     /**
      * get component for specific entity
      *
-     * @param uuid
-     *      UUID of entity
+     * @param id
+     *      id of entity
      * @param component
      *      component.class
      * @return
      *      component
      */
-    public static Component getComponent(UUID uuid, Class<? extends Component> component) {
-        HashMap<UUID, ? extends Component> store = components.get(component);
-        Component returnComponent = store.get(uuid);
+    public static Component getComponent(long id, Class<? extends Component> component) {
+        Component returnComponent = tryGetComponent(id, component);
         if (returnComponent == null) {
-            // return faker null component to prevent NullPointerException
-            return new NullComponent();
+            // return shared faker null component to prevent NullPointerException
+            return NullComponent.INSTANCE;
         } else {
             // return desired component
-            return store.get(uuid);
+            return returnComponent;
         }
     }
 
     /**
-     * get all components of specific class
+     * get component for specific entity without faker component
+     * replaces the combination of hasComponent() & getComponent()
      *
+     * @param id
+     *      id of entity
      * @param component
      *      component.class
      * @return
-     *      hashmap of components
+     *      component or null if the entity has no such component
      */
-    public static HashMap<UUID, ? extends Component> getAllComponents(Class<? extends Component> component) {
-        return components.get(component);
+    public static <T extends Component> T tryGetComponent(long id, Class<T> component) {
+        Entity entity = getEntity(id);
+        if (entity == null) {
+            return null;
+        }
+        return component.cast(entity.archetype.get(entity.row, getComponentType(component)));
     }
 
     /**
      * remove component
+     * only removes the stored component if it is the same instance
+     * (a newer component of the same class may already have replaced it)
      *
-     * @param uuid
-     *      UUID of entity
+     * @param id
+     *      id of entity
      * @param component
-     *      component.class
+     *      component
      */
-    public static void removeComponent(UUID uuid, Component component) {
-        components.get(component.getClass()).remove(uuid);
+    public static void removeComponent(long id, Component component) {
+        Entity entity = getEntity(id);
+        if (entity == null) {
+            return;
+        }
+        int type = getComponentType(component.getClass());
+        Archetype source = entity.archetype;
+        if (source.get(entity.row, type) != component) {
+            return;
+        }
+        moveEntity(entity, source.withoutType(type));
     }
 
     /**
      * check if component exist
      *
-     * @param uuid
-     *      UUID of entity
+     * @param id
+     *      id of entity
      * @param component
      *      component.class
      * @return
      *      boolean
      */
-    public static boolean hasComponent(UUID uuid, Class<? extends Component> component) {
-        HashMap<UUID, ? extends Component> store = components.get(component);
-        if (store == null) {
+    public static boolean hasComponent(long id, Class<? extends Component> component) {
+        Entity entity = getEntity(id);
+        if (entity == null) {
             return false;
         }
-        return null != store.get(uuid);
+        return entity.archetype.hasType(getComponentType(component));
+    }
+
+    /**
+     * get the type index of a component class
+     * new classes get the next free index
+     *
+     * @param component
+     *      component.class
+     * @return
+     *      type index
+     */
+    static int getComponentType(Class<? extends Component> component) {
+        Integer type = componentTypes.get(component);
+        if (type == null) {
+            type = componentTypes.size();
+            componentTypes.put(component, type);
+        }
+        return type;
+    }
+
+    /**
+     * get or create the archetype of a component set
+     *
+     * @param signature
+     *      component set
+     * @return
+     *      archetype
+     */
+    static Archetype getArchetype(BitSet signature) {
+        Archetype archetype = archetypes.get(signature);
+        if (archetype == null) {
+            archetype = new Archetype(signature);
+            archetypes.put(archetype.getSignature(), archetype);
+            archetypeList.add(archetype);
+            for (Query query : queries) {
+                query.addArchetype(archetype);
+            }
+        }
+        return archetype;
+    }
+
+    /**
+     * register a query and fill it with all existing archetypes
+     * called by the query itself
+     *
+     * @param query
+     *      query
+     */
+    static void registerQuery(Query query) {
+        queries.add(query);
+        for (Archetype archetype : archetypeList) {
+            query.addArchetype(archetype);
+        }
+    }
+
+    /**
+     * helper function to move an entity (including its components) to another archetype
+     *
+     * @param entity
+     *      entity
+     * @param target
+     *      new archetype
+     */
+    private static void moveEntity(Entity entity, Archetype target) {
+        Archetype source = entity.archetype;
+        int sourceRow = entity.row;
+        int row = target.add(entity, source, sourceRow);
+        source.remove(sourceRow);
+        entity.archetype = target;
+        entity.row = row;
     }
 
     public static void statistic() {
-        System.out.println("entities: "+entities.size());
-        System.out.println("components: "+components.size());
+        System.out.println("entities: "+entityCount);
+        System.out.println("components: "+componentTypes.size());
+        System.out.println("archetypes: "+archetypeList.size());
     }
 }
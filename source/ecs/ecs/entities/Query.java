@@ -0,0 +1,130 @@
+package ecs.ecs.entities;
+
+import ecs.ecs.components.Component;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * query (view) of all entities with a set of components
+ * e.g. new Query(PositionComponent.class, VelocityComponent.class).without(StaticComponent.class)
+ *
+ * the query caches the matching archetypes, the entity-manager adds new archetypes on creation
+ * entities move between archetypes when components are added or removed,
+ * so the match set is always up to date without probing single entities
+ *
+ * systems should create their queries once and keep them
+ */
+public class Query {
+
+    // required components
+    private final BitSet with = new BitSet();
+
+    // excluded components
+    private final BitSet without = new BitSet();
+
+    // cached matching archetypes
+    private final List<Archetype> archetypes = new ArrayList<>();
+
+    /**
+     * constructor
+     *
+     * @param components
+     *      required component.classes
+     */
+    @SafeVarargs
+    public Query(Class<? extends Component>... components) {
+        for (Class<? extends Component> component : components) {
+            with.set(EntityManager.getComponentType(component));
+        }
+        EntityManager.registerQuery(this);
+    }
+
+    /**
+     * exclude entities having any of the given components
+     *
+     * @param components
+     *      excluded component.classes
+     * @return
+     *      this query
+     */
+    @SafeVarargs
+    public final Query without(Class<? extends Component>... components) {
+        for (Class<? extends Component> component : components) {
+            without.set(EntityManager.getComponentType(component));
+        }
+        // drop archetypes not matching anymore
+        archetypes.removeIf(archetype -> !matches(archetype));
+        return this;
+    }
+
+    /**
+     * get all matching archetypes
+     * iterate the archetypes and their rows to process the entities
+     *
+     * @return
+     *      list of archetypes (do not modify)
+     */
+    public List<Archetype> getArchetypes() {
+        return archetypes;
+    }
+
+    /**
+     * get the number of matching entities
+     *
+     * @return
+     *      number of entities
+     */
+    public int size() {
+        int size = 0;
+        for (Archetype archetype : archetypes) {
+            size += archetype.size();
+        }
+        return size;
+    }
+
+    /**
+     * check if an archetype matches this query
+     *
+     * @param archetype
+     *      archetype
+     * @return
+     *      boolean
+     */
+    boolean matches(Archetype archetype) {
+        BitSet signature = archetype.getSignature();
+        return !signature.intersects(without) && containsAll(signature, with);
+    }
+
+    /**
+     * add a matching archetype
+     * called by the entity-manager
+     *
+     * @param archetype
+     *      archetype
+     */
+    void addArchetype(Archetype archetype) {
+        if (matches(archetype)) {
+            archetypes.add(archetype);
+        }
+    }
+
+    /**
+     * helper function to check if a set contains all bits of another set
+     *
+     * @param set
+     *      set
+     * @param subset
+     *      subset
+     * @return
+     *      boolean
+     */
+    private static boolean containsAll(BitSet set, BitSet subset) {
+        for (int bit = subset.nextSetBit(0); bit >= 0; bit = subset.nextSetBit(bit + 1)) {
+            if (!set.get(bit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
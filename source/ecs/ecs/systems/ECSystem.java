@@ -1,8 +1,76 @@
 package ecs.ecs.systems;
 
+import ecs.ecs.components.Component;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * interface for systems
+ *
+ * systems declare the component classes they read and write,
+ * the SystemScheduler runs systems without conflicts concurrently
  */
 public interface ECSystem {
     void run(boolean debug);
+
+    /**
+     * component classes this system reads
+     *
+     * @return
+     *      set of component.classes
+     */
+    default Set<Class<? extends Component>> reads() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * component classes this system writes
+     *
+     * @return
+     *      set of component.classes
+     */
+    default Set<Class<? extends Component>> writes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * system has to run on the thread calling the scheduler (simulation thread),
+     * e.g. it writes render commands or calls observers
+     *
+     * @return
+     *      boolean
+     */
+    default boolean isThreadBound() {
+        return false;
+    }
+
+    /**
+     * system changes the entity structure (add/remove entities or components, update-buffer)
+     * exclusive systems never run concurrently with any other system
+     *
+     * @return
+     *      boolean
+     */
+    default boolean isExclusive() {
+        return false;
+    }
+
+    /**
+     * helper function to declare component sets
+     *
+     * @param components
+     *      component.classes
+     * @return
+     *      set of component.classes
+     */
+    @SafeVarargs
+    static Set<Class<? extends Component>> components(Class<? extends Component>... components) {
+        // copy element by element, the varargs array is not passed on
+        Set<Class<? extends Component>> set = new HashSet<>();
+        for (Class<? extends Component> component : components) {
+            set.add(component);
+        }
+        return Collections.unmodifiableSet(set);
+    }
 }
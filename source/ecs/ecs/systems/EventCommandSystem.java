@@ -1,13 +1,15 @@
 package ecs.ecs.systems;
 
+import ecs.ecs.components.Component;
 import ecs.ecs.components.JumpComponent;
+import ecs.ecs.components.ParticleComponent;
 import ecs.ecs.components.VelocityComponent;
 import ecs.ecs.entities.Entity;
-import ecs.event.EventData;
+import ecs.ecs.entities.EntityManager;
+import ecs.event.ConcurrentEventQueue;
 import ecs.event.EventNotifier;
 import ecs.event.GameEvent;
 import ecs.settings.Settings;
-import javafx.geometry.Point3D;
 import java.util.*;
 
 /**
@@ -20,6 +22,17 @@ import java.util.*;
  * events are things that happened in the past
  * commands are action in the future
  *
+ * events are stored in ring buffers of preallocated events, which are recycled after each run
+ * nothing is allocated per event
+ * every thread publishes to its own ring buffer, events can be pushed in from any thread without locking
+ *
+ * collisions are raised on every tick two entities touch, one per collider hit,
+ * they are coalesced into contacts per (entity, collider):
+ * the first collision of a contact is handled and passed on as COLLISION_ENTER,
+ * repeats are suppressed while the contact stays,
+ * a contact without collision in a tick ends with COLLISION_EXIT (not while the entity is asleep)
+ * raw COLLISION events are not delivered to observers, observers of COLLISION receive COLLISION_ENTER and COLLISION_EXIT
+ *
  * this class is the main game-logic-part
  *
  * singleton
@@ -42,13 +55,28 @@ public class EventCommandSystem implements ECSystem {
     }
 
     // event stack
-    private List<GameEvent> eventStack = new ArrayList<>();
+    private ConcurrentEventQueue eventStack = new ConcurrentEventQueue(Settings.getEventQueueCapacity());
+
+    // reusable events fired on land and on contact changes
+    private GameEvent landEvent = new GameEvent(GameEvent.ENTITY_LAND);
+    private GameEvent contactEvent = new GameEvent(GameEvent.COLLISION_ENTER);
+
+    // current contacts by (entity, collider), in order of enter
+    private LinkedHashMap<Contact, Contact> contacts = new LinkedHashMap<>();
+
+    // reusable key to look up contacts
+    private Contact probe = new Contact();
+
+    // current run
+    private long tick = 0;
 
     // gravity
     private double gravity = Settings.getGravity();
 
     /**
-     * events will be pushed in by other systems
+     * events will be pushed in by other systems, loaders, timers ...
+     * the event is copied, the caller can reuse it
+     * thread-safe and lock-free, events of each thread keep their order
      *
      * @param gameEvent
      *      event
@@ -58,6 +86,28 @@ public class EventCommandSystem implements ECSystem {
     }
 
 
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(JumpComponent.class, VelocityComponent.class, ParticleComponent.class);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> writes() {
+        return ECSystem.components(JumpComponent.class, VelocityComponent.class);
+    }
+
+    // observers are called on the simulation thread
+    @Override
+    public boolean isThreadBound() {
+        return true;
+    }
+
+    // observers may add or remove entities
+    @Override
+    public boolean isExclusive() {
+        return true;
+    }
+
     /**
      * system run function
      *
@@ -68,33 +118,64 @@ public class EventCommandSystem implements ECSystem {
     public void run(boolean debug) {
         if(debug) System.err.println("EventSystem <start>");
 
+        tick++;
+
         // parse events
-        for (GameEvent event : eventStack) {
+        // events pushed in while running are kept for the next tick
+        eventStack.begin();
+        for (GameEvent event = eventStack.next(); event != null; event = eventStack.next()) {
 
             // collision events
             if (event.getEventType().equals(GameEvent.COLLISION)) {
                 // pull data from event
-                Entity entity = (Entity) event.getData(EventData.CollisionUUID);
-                Point3D velocity = (Point3D) event.getData(EventData.VELOCITY);
+                Entity entity = EntityManager.getEntity(event.getEntity());
+                if (entity == null) {
+                    continue;
+                }
+
+                // the contact goes on, nothing changed
+                if (!enter(event)) {
+                    continue;
+                }
+                double velocityY = event.getVelocityY();
 
                 // on land reset jump-ability & velocity
-                if (velocity.getY() > gravity && entity.hasComponent(JumpComponent.class)) {
-                    entity.getComponent(JumpComponent.class).setValue(true);
-                    event.consume();
-                    eventNotifier.fireEvent(new GameEvent(GameEvent.ENTITY_LAND));
+                JumpComponent jumpComponent = entity.tryGetComponent(JumpComponent.class);
+                if (velocityY > gravity && jumpComponent != null) {
+                    jumpComponent.setValue(true);
+                    landEvent.reset(GameEvent.ENTITY_LAND);
+                    landEvent.setEntity(entity.getId());
+                    eventNotifier.fireEvent(landEvent);
                 }
 
                 // on land (y>0) or when hitting the roof (y<0) reset velocity
                 // do nor reset when hitting a wall (y=0)
-                if (velocity.getY() != 0 && entity.hasComponent(VelocityComponent.class)) {
-                    Point3D storedVelocity = (Point3D) entity.getComponent(VelocityComponent.class).getValue();
-                    entity.getComponent(VelocityComponent.class).setValue(new Point3D(storedVelocity.getX(),0,storedVelocity.getZ()));
-                    event.consume();
+                VelocityComponent velocityComponent = entity.tryGetComponent(VelocityComponent.class);
+                if (velocityY != 0 && velocityComponent != null) {
+                    velocityComponent.set(velocityComponent.getX(), 0, velocityComponent.getZ());
                 }
+
+                // pass the new contact on
+                contactEvent.reset(GameEvent.COLLISION_ENTER);
+                contactEvent.setEntity(event.getEntity());
+                contactEvent.setCollider(event.getCollider());
+                contactEvent.setVelocity(event.getVelocityX(), velocityY, event.getVelocityZ());
+                contactEvent.setNormal(event.getNormalX(), event.getNormalY(), event.getNormalZ());
+                eventNotifier.fireEvent(contactEvent);
+                continue;
             }
 
 
 
+            // particles leaving the world are deleted
+            if (event.getEventType().equals(GameEvent.OUT_OF_WORLD)) {
+                Entity entity = EntityManager.getEntity(event.getEntity());
+                if (entity != null && entity.tryGetComponent(ParticleComponent.class) != null) {
+                    entity.delete();
+                    continue;
+                }
+            }
+
             // just fire the event to all observers
             if (!event.isConsumed()) {
                 eventNotifier.fireEvent(event);
@@ -103,11 +184,92 @@ public class EventCommandSystem implements ECSystem {
         }
 
 
-        // clear event-stack
-        // we want an empty stack on next tick
-        // unprocessed events get cleared
-        eventStack.clear();
+        // processed events are recycled by the event stack
 
-        if(debug) System.out.println("EventSystem <end>");
+        // end contacts without collision in this tick
+        exit();
+
+        if(debug) {
+            System.out.println("contacts: " + contacts.size());
+            System.out.println("EventSystem <end>");
+        }
+    }
+
+    /**
+     * helper function to update the contact of a collision
+     *
+     * @param event
+     *      collision event
+     * @return
+     *      boolean, true if the contact is new
+     */
+    private boolean enter(GameEvent event) {
+        probe.entity = event.getEntity();
+        probe.collider = event.getCollider();
+        Contact contact = contacts.get(probe);
+        if (contact != null) {
+            contact.tick = tick;
+            return false;
+        }
+        contact = new Contact();
+        contact.entity = event.getEntity();
+        contact.collider = event.getCollider();
+        contact.tick = tick;
+        contacts.put(contact, contact);
+        return true;
+    }
+
+    /**
+     * helper function to end all contacts without collision in this tick
+     * sleeping entities do not move and raise no collisions, their contacts are kept
+     * as long as both entities are alive, and in the tick they wake up in
+     * (an entity woken up during a tick may have missed gravity and raise no collision in it)
+     */
+    private void exit() {
+        Iterator<Contact> iterator = contacts.values().iterator();
+        while (iterator.hasNext()) {
+            Contact contact = iterator.next();
+            if (EntityManager.isAlive(contact.entity) && EntityManager.isAlive(contact.collider)) {
+                VelocityComponent velocityComponent = EntityManager.tryGetComponent(contact.entity, VelocityComponent.class);
+                if (velocityComponent != null && velocityComponent.isSleeping()) {
+                    contact.tick = tick + 1;
+                    continue;
+                }
+            }
+            if (contact.tick >= tick) {
+                continue;
+            }
+            iterator.remove();
+            contactEvent.reset(GameEvent.COLLISION_EXIT);
+            contactEvent.setEntity(contact.entity);
+            contactEvent.setCollider(contact.collider);
+            eventNotifier.fireEvent(contactEvent);
+        }
+    }
+
+    /**
+     * contact of an entity with a collider
+     * equal for the same (entity, collider) ids, incl. their generations
+     */
+    private static class Contact {
+        // entity ids
+        long entity, collider;
+
+        // last run with a collision
+        long tick;
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Contact)) {
+                return false;
+            }
+            Contact other = (Contact) object;
+            return entity == other.entity && collider == other.collider;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(entity) * 31 + Long.hashCode(collider);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package ecs.ecs.systems;
+
+/**
+ * fixed timestep
+ *
+ * the simulation advances in ticks of constant length (Settings.getTickRate() per second),
+ * independent of the display refresh rate
+ * the elapsed frame time is accumulated and converted into whole ticks,
+ * the rest is kept for the next frame
+ * (the interpolation alpha for rendering is given by the published snapshot, see RenderSnapshot.getAlpha())
+ *
+ * after a hitch at most maxTicks ticks are run, the remaining backlog is dropped,
+ * so a slow frame can not trigger an ever growing number of ticks
+ */
+public class FixedTimestep {
+
+    // nanoseconds per tick
+    private final long tickNanos;
+
+    // max ticks per frame
+    private final int maxTicks;
+
+    // time not yet simulated
+    private long accumulator = 0;
+
+    // time of the last frame, -1 before the first frame
+    private long lastTime = -1;
+
+    /**
+     * constructor
+     *
+     * @param tickRate
+     *      ticks per second
+     * @param maxTicks
+     *      max ticks per frame (catch-up cap)
+     */
+    public FixedTimestep(int tickRate, int maxTicks) {
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * advance to a new frame
+     *
+     * @param now
+     *      frame time in nanoseconds
+     * @return
+     *      number of ticks to run
+     */
+    public int advance(long now) {
+        // first frame runs a single tick
+        if (lastTime < 0) {
+            lastTime = now;
+            return 1;
+        }
+
+        accumulator += Math.max(0, now - lastTime);
+        lastTime = now;
+
+        int ticks = (int) Math.min(accumulator / tickNanos, maxTicks);
+        if (ticks == maxTicks) {
+            // drop the backlog
+            accumulator %= tickNanos;
+        } else {
+            accumulator -= ticks * tickNanos;
+        }
+
+        return ticks;
+    }
+
+    /**
+     * get the length of a tick
+     *
+     * @return
+     *      nanoseconds
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * get the time until the next tick is due
+     *
+     * @return
+     *      nanoseconds
+     */
+    public long getNanosToNextTick() {
+        return Math.max(0, tickNanos - accumulator);
+    }
+}
@@ -1,82 +1,90 @@
 package ecs.ecs.systems;
 
+import ecs.collision.CollisionGrid;
+import ecs.ecs.components.ColliderComponent;
 import ecs.ecs.components.Component;
+import ecs.ecs.components.VelocityComponent;
+import ecs.ecs.entities.Archetype;
 import ecs.ecs.entities.Entity;
 import ecs.ecs.entities.EntityManager;
-import ecs.ecs.entities.State;
-import java.util.HashMap;
+import ecs.ecs.entities.Query;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * garbage collector has different tasks:
- * - update EntityManager.buffer (states: stable, update, delete)
- * - deleting entities and/or components
+ * - deleting flagged entities and/or components (EntityManager.componentRemovalBuffer & entityDeletionBuffer)
  * - when deleting entities the components have to be removed as well
+ * - wake up sleeping entities when a collider was removed, they may have lost their ground
  * always put this system at last
  */
 public class GarbageCollectorSystem implements ECSystem {
 
+    // collision grid
+    private CollisionGrid collisionGrid = CollisionGrid.getInstance();
+
+    // all entities which may sleep
+    private Query sleepers = new Query(VelocityComponent.class);
+
+    // removes entities and components
+    @Override
+    public boolean isExclusive() {
+        return true;
+    }
+
     @Override
     public void run(boolean debug) {
         if(debug) System.err.println("GarbageCollectorSystem <start>");
         int countEntities = 0;
         int countComponents = 0;
+        boolean colliderRemoved = false;
 
-        // get buffer
-        HashMap<UUID, Entity> entities = EntityManager.entitiesUpdateBuffer;
+        // remove flagged components from entity-manager
+        // local list in entity was updated on function-call: entity.removeComponent()
+        for (Component component : EntityManager.componentRemovalBuffer) {
+            EntityManager.removeComponent(component.getEntity().getId(), component);
+            if (component instanceof ColliderComponent) {
+                collisionGrid.remove((ColliderComponent) component);
+                colliderRemoved = true;
+            }
+            countComponents++;
+        }
+        EntityManager.componentRemovalBuffer.clear();
 
-        // iterate buffer to delete components and/or entities
-        for(Map.Entry<UUID, Entity> entry : entities.entrySet()) {
-            UUID uuid = entry.getKey();
-            Entity entity = entry.getValue();
-            State state = entity.getState();
+        // remove flagged entities
+        for (Entity entity : EntityManager.entityDeletionBuffer) {
+            // all components are stored in the entity's archetype row
+            // local list in entity has not to be updated,
+            // because we will destroy the entity
             List<Component> components = entity.getAllComponents();
-
-            switch (state) {
-                case UPDATE:
-                    // iterate components
-                    for (Component component : components) {
-                        // remove flagged components from entity-manager
-                        // local list in entity was updated on function-call: entity.removeComponent()
-                        if (component.getState() == State.DELETE) {
-                            EntityManager.removeComponent(uuid, component);
-                            countComponents++;
-                        } else {
-                            component.setState(State.STABLE);
-                        }
-                    }
-                    // flag entity as stable
-                    entity.setState(State.STABLE);
-                    countEntities++;
-                    break;
-
-                case DELETE:
-                    // iterate components
-                    for (Component component : components) {
-                        // remove all components from entity-manager
-                        // local list in entity has not to be updated,
-                        // because we will destroy the entity
-                        EntityManager.removeComponent(uuid, component);
-                        countComponents++;
-                    }
-
-                    // remove entity
-                    EntityManager.entities.remove(uuid);
-                    entity.delete();
-                    countEntities++;
-                    break;
+            countComponents += components.size();
+            for (Component component : components) {
+                if (component instanceof ColliderComponent) {
+                    collisionGrid.remove((ColliderComponent) component);
+                    colliderRemoved = true;
+                }
             }
 
+            // remove entity and its components from entity-manager
+            // the slot gets recycled, stale ids will not resolve anymore
+            EntityManager.removeEntity(entity.getId());
+            countEntities++;
         }
+        EntityManager.entityDeletionBuffer.clear();
 
-        // clear buffer
-        EntityManager.entitiesUpdateBuffer.clear();
+        // wake up all sleeping entities
+        if (colliderRemoved) {
+            for (Archetype archetype : sleepers.getArchetypes()) {
+                Component[] velocityComponents = archetype.getColumn(VelocityComponent.class);
+                for (int row = 0; row < archetype.size(); row++) {
+                    ((VelocityComponent) velocityComponents[row]).wake();
+                }
+            }
+        }
 
         if(debug) {
-            System.out.println("entities updated: " + countEntities);
-            System.out.println("components updated: " + countComponents);
+            System.out.println("entities removed: " + countEntities);
+            System.out.println("components removed: " + countComponents);
             System.out.println("GarbageCollectorSystem <end>");
         }
     }
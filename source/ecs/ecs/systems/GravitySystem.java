@@ -1,13 +1,11 @@
 package ecs.ecs.systems;
 
 import ecs.ecs.components.*;
-import ecs.ecs.entities.Entity;
+import ecs.ecs.entities.Archetype;
 import ecs.ecs.entities.EntityManager;
+import ecs.ecs.entities.Query;
 import ecs.settings.Settings;
-import javafx.geometry.Point3D;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * apply gravity
@@ -18,42 +16,39 @@ public class GravitySystem implements ECSystem {
     // entity-manager
     private EntityManager entityManager = EntityManager.getInstance();
 
+    // all entities with gravity & velocity
+    private Query query = new Query(GravityComponent.class, VelocityComponent.class);
+
     // settings
     Settings settings = Settings.getInstance();
     private double gravity = Settings.getGravity();
 
+    // parallel loop over all entities
+    private ParallelFor<Void> parallelFor = new ParallelFor<>(Settings.getParallelChunkSize(), Settings.getParallelMinEntities(), () -> null);
+
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(GravityComponent.class, VelocityComponent.class);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> writes() {
+        return ECSystem.components(VelocityComponent.class);
+    }
+
     @Override
     public void run(boolean debug) {
         if(debug) System.err.println("GravitySystem <start>");
         int count = 0;
-        HashMap<UUID, Component> components = EntityManager.components.get(GravityComponent.class);
 
         // check if there are any gravityComponents
-        if (components == null) {
+        if (query.getArchetypes().isEmpty()) {
             if(debug) System.out.println("entities with gravity: 0");
         } else {
-            if(debug) System.out.println("entities with gravity: " + components.size());
+            if(debug) System.out.println("entities with gravity: " + query.size());
 
-            // traverse all gravityComponents
-            for(Map.Entry<UUID, ? extends Component> entry : components.entrySet()) {
-                UUID uuid = entry.getKey();
-                Component component = entry.getValue();
-
-                // check if component is enabled
-                if (component.isEnabled()) {
-
-                    Entity entity = EntityManager.getEntity(uuid);
-
-                    // update velocity
-                    if (entity.hasComponent(VelocityComponent.class)) {
-                        Component velocityComponent = entity.getComponent(VelocityComponent.class);
-                        Point3D velocity = (Point3D) velocityComponent.getValue();
-                        velocityComponent.setValue(new Point3D(velocity.getX(), velocity.getY() + gravity , velocity.getZ()));
-
-                        count++;
-                    }
-                }
-            }
+            // traverse all archetypes with gravity & velocity, chunks may run in parallel
+            count = parallelFor.run(query, this::applyGravity);
         }
 
         if(debug)
@@ -62,4 +57,36 @@ public class GravitySystem implements ECSystem {
             System.out.println("GravitySystem <end>");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * apply gravity to a chunk of rows
+     * rows are independent, so chunks can run in parallel
+     *
+     * works on the primitive columns of the archetype: plain arithmetic over contiguous double[]
+     * (no branches, no calls), a loop shape the JIT can auto-vectorize
+     * disabled gravity and sleeping or disabled velocity are factors 0
+     *
+     * @param archetype
+     *      archetype
+     * @param from
+     *      first row
+     * @param to
+     *      last row (exclusive)
+     * @param context
+     *      unused
+     * @return
+     *      number of entities processed
+     */
+    private int applyGravity(Archetype archetype, int from, int to, Void context) {
+        double[] scale = archetype.getPacked(GravityComponent.class)[GravityComponent.SCALE];
+        double[][] velocity = archetype.getPacked(VelocityComponent.class);
+        double[] y = velocity[VelocityComponent.Y];
+        double[] active = velocity[VelocityComponent.ACTIVE];
+
+        // update velocity
+        for (int row = from; row < to; row++) {
+            y[row] += gravity * scale[row] * active[row];
+        }
+        return to - from;
+    }
+}
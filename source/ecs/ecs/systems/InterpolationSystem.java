@@ -0,0 +1,108 @@
+package ecs.ecs.systems;
+
+import ecs.ecs.components.*;
+import ecs.ecs.entities.Entity;
+import ecs.ecs.entities.State;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * places shapes and lights of moving entities
+ *
+ * the simulation runs in fixed ticks, frames are rendered in between,
+ * so the previous and the current position are written to the render snapshot
+ * and the fx thread places shapes & lights in between on every frame
+ * only changed positions are written, once an entity rests its shapes & lights cost nothing
+ * the system iterates the changed set of the positions (see ChangedSet), not all moving entities
+ *
+ * affected components: position, velocity, shape, light
+ */
+public class InterpolationSystem implements ECSystem {
+
+    // changed positions, kept until the entity has been placed at rest
+    private List<Component> changed = new ArrayList<>();
+
+    // render commands
+    private SnapshotExchange snapshotExchange = SnapshotExchange.getInstance();
+
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(VelocityComponent.class, PositionComponent.class);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> writes() {
+        return ECSystem.components(PositionComponent.class, ShapeComponent.class, LightComponent.class);
+    }
+
+    // writes render commands
+    @Override
+    public boolean isThreadBound() {
+        return true;
+    }
+
+    @Override
+    public void run(boolean debug) {
+        if(debug) System.err.println("InterpolationSystem <start>");
+        int count = 0;
+        RenderSnapshot snapshot = snapshotExchange.getBack();
+
+        // take the newly changed positions
+        PositionComponent.CHANGES.drainTo(changed);
+
+        // traverse the changed positions only
+        for (int i = 0; i < changed.size(); ) {
+            PositionComponent positionComponent = (PositionComponent) changed.get(i);
+            Entity entity = positionComponent.getEntity();
+
+            // drop removed positions and positions of entities without velocity (placed by the MovementSystem)
+            if (entity == null || entity.getState() == State.DELETE || positionComponent.getState() == State.DELETE
+                    || !entity.hasComponent(VelocityComponent.class)) {
+                positionComponent.clearChanged();
+                remove(i);
+                continue;
+            }
+
+            // keep the position until the entity has been placed at rest
+            if (!positionComponent.hasMoved()) {
+                positionComponent.clearChanged();
+                remove(i);
+            } else {
+                i++;
+            }
+
+            // update shape position
+            ShapeComponent shapeComponent = entity.tryGetComponent(ShapeComponent.class);
+            if (shapeComponent != null) {
+                count++;
+                snapshot.place(shapeComponent.getValue(), positionComponent);
+            }
+
+            // update light position
+            LightComponent lightComponent = entity.tryGetComponent(LightComponent.class);
+            if (lightComponent != null) {
+                count++;
+                snapshot.place(lightComponent.getValue(), positionComponent);
+            }
+        }
+
+        if(debug) {
+            System.out.println("interpolated components: " + count);
+            System.out.println("InterpolationSystem <end>");
+        }
+    }
+
+    /**
+     * helper function to remove a position from the changed positions
+     * swaps in the last one, the order does not matter
+     *
+     * @param index
+     *      index
+     */
+    private void remove(int index) {
+        int last = changed.size() - 1;
+        changed.set(index, changed.get(last));
+        changed.remove(last);
+    }
+}
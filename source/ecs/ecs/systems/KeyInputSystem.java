@@ -1,17 +1,17 @@
 package ecs.ecs.systems;
 
 import ecs.ecs.components.*;
-import ecs.ecs.entities.Entity;
+import ecs.ecs.entities.Archetype;
 import ecs.ecs.entities.EntityManager;
+import ecs.ecs.entities.Query;
 import ecs.event.GameEvent;
 import ecs.Game;
 import ecs.settings.GameType;
 import ecs.settings.Settings;
-import javafx.geometry.Point3D;
 import javafx.scene.input.KeyCode;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * handles key input
@@ -22,28 +22,43 @@ public class KeyInputSystem implements ECSystem {
     // entity-manager
     private EntityManager entityManager = EntityManager.getInstance();
 
+    // all entities with key input
+    private Query query = new Query(KeyInputComponent.class);
+
     // event-system
     private EventCommandSystem eventCommandSystem = EventCommandSystem.getInstance();
 
+    // reusable jump event, copied by the event-system
+    private GameEvent jumpEvent = new GameEvent(GameEvent.ENTITY_JUMP);
+
     // speed & jump
     private int movement = Settings.getSpeed();
     private int jump = Settings.getJump();
     private double xVel, yVel, zVel;
 
     // key hashmap
-    private HashMap<KeyCode,Boolean> keyInput = Game.keyInput;
+    private Map<KeyCode,Boolean> keyInput = Game.keyInput;
+
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(KeyInputComponent.class, JumpComponent.class, VelocityComponent.class);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> writes() {
+        return ECSystem.components(JumpComponent.class, VelocityComponent.class);
+    }
 
     @Override
     public void run(boolean debug) {
         if(debug) System.err.println("KeyInputSystem <start>");
         int count = 0;
-        HashMap<UUID, Component> components = EntityManager.components.get(KeyInputComponent.class);
+        List<Archetype> archetypes = query.getArchetypes();
 
         // check if there are any keyInputComponents
-        if (components == null) {
+        if (archetypes.isEmpty()) {
             if(debug) System.out.println("entities with key input: 0");
         } else {
-            if(debug) System.out.println("entities with key input: " + components.size());
 
             // default velocity
             xVel = 0;
@@ -74,42 +89,48 @@ public class KeyInputSystem implements ECSystem {
                 xVel = movement;
             }
 
-            // traverse all keyInputComponents
-            for(Map.Entry<UUID, ? extends Component> entry : components.entrySet()) {
-                UUID uuid = entry.getKey();
-                Component component = entry.getValue();
-
-                // check if component is enabled
-                if (component.isEnabled()) {
-
-                    Entity entity = EntityManager.getEntity(uuid);
+            // traverse all archetypes with key input
+            for (Archetype archetype : archetypes) {
+                if(debug) System.out.println("entities with key input: " + archetype.size());
+                Component[] keyInputComponents = archetype.getColumn(KeyInputComponent.class);
+                // optional columns, null if the archetype does not store them
+                Component[] jumpComponents = archetype.getColumn(JumpComponent.class);
+                Component[] velocityComponents = archetype.getColumn(VelocityComponent.class);
+
+                for (int row = 0; row < archetype.size(); row++) {
+                    Component component = keyInputComponents[row];
+
+                    // check if component is enabled
+                    if (component.isEnabled()) {
+
+                        // update jump
+                        if (buttonW && jumpComponents != null) {
+                            Component jumpComponent = jumpComponents[row];
+                            if ((boolean) jumpComponent.getValue()) {
+                                yVel = jump;
+                                jumpComponent.setValue(false);
+                                jumpEvent.reset(GameEvent.ENTITY_JUMP);
+                                jumpEvent.setEntity(archetype.getEntity(row).getId());
+                                eventCommandSystem.addEvent(jumpEvent);
+                            }
 
-                    // update jump
-                    if (buttonW && entity.hasComponent(JumpComponent.class)) {
-                        Component jumpComponent = entity.getComponent(JumpComponent.class);
-                        if ((boolean) jumpComponent.getValue()) {
-                            yVel = jump;
-                            jumpComponent.setValue(false);
-                            eventCommandSystem.addEvent(new GameEvent(GameEvent.ENTITY_JUMP));
+                            count++;
                         }
 
-                        count++;
-                    }
-
-                    // update velocity
-                    if (entity.hasComponent(VelocityComponent.class)) {
-                        Component velocityComponent = entity.getComponent(VelocityComponent.class);
-                        // restore current y-velocity
-                        if (Settings.gameType() == GameType.Platformer) {
-                            Point3D velocity = (Point3D) velocityComponent.getValue();
-                            if (yVel == 0) {
-                                yVel = velocity.getY();
+                        // update velocity
+                        if (velocityComponents != null) {
+                            VelocityComponent velocityComponent = (VelocityComponent) velocityComponents[row];
+                            // restore current y-velocity
+                            if (Settings.gameType() == GameType.Platformer) {
+                                if (yVel == 0) {
+                                    yVel = velocityComponent.getY();
+                                }
                             }
-                        }
-                        // set velocity
-                        velocityComponent.setValue(new Point3D(xVel, yVel, zVel));
+                            // set velocity
+                            velocityComponent.set(xVel, yVel, zVel);
 
-                        count++;
+                            count++;
+                        }
                     }
                 }
             }
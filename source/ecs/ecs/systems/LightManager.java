@@ -0,0 +1,245 @@
+package ecs.ecs.systems;
+
+import ecs.Game;
+import ecs.collision.GridKey;
+import ecs.settings.Settings;
+import javafx.scene.Group;
+import javafx.scene.LightBase;
+import javafx.scene.Node;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * light manager
+ *
+ * the shading cost grows with the number of lights in the scene and the hardware caps them,
+ * so lights are not added to the scene regions but managed here:
+ * on every frame the Settings.getMaxLights() most relevant lights (distance to the camera focus, brightness)
+ * within Settings.getLightRange() are switched on and attached, all other lights are switched off and detached
+ *
+ * lights are kept in a grid (cells of Settings.getRegionSize() pixels), so only lights near the focus are ranked
+ * lights that are on rank better (Settings.getLightHysteresis()), so lights at the boundary do not flicker
+ *
+ * fx thread only
+ *
+ * singleton
+ */
+public class LightManager {
+
+    private static LightManager lightManager = new LightManager();
+
+    // budget
+    private int maxLights = Settings.getMaxLights();
+    private double range = Settings.getLightRange();
+    private double hysteresis = Settings.getLightHysteresis();
+
+    // cell size in pixels
+    private double cellSize = Settings.getRegionSize();
+
+    // lights by cell key
+    private HashMap<Long, List<LightBase>> cells = new HashMap<>();
+    // cell key by light
+    private HashMap<LightBase, Long> keys = new HashMap<>();
+
+    // parent of the lights that are on
+    private Group activeLights = null;
+
+    // selection: lights that are on and their score, best first
+    private LightBase[] selected = new LightBase[maxLights];
+    private double[] scores = new double[maxLights];
+    private int selectedCount = 0;
+
+    // lights that are on
+    private List<LightBase> active = new ArrayList<>();
+
+    private LightManager() {}
+
+    /* Static 'instance' method */
+    public static LightManager getInstance( ) {
+        return lightManager;
+    }
+
+    /**
+     * add a light, it stays off until it is selected
+     *
+     * @param light
+     *      light
+     */
+    public void add(LightBase light) {
+        if (keys.containsKey(light)) {
+            return;
+        }
+        light.setLightOn(false);
+        long key = key(light);
+        keys.put(light, key);
+        cells.computeIfAbsent(key, k -> new ArrayList<>()).add(light);
+    }
+
+    /**
+     * remove a light
+     *
+     * @param light
+     *      light
+     */
+    public void remove(LightBase light) {
+        Long key = keys.remove(light);
+        if (key == null) {
+            return;
+        }
+        cells.get(key).remove(light);
+        if (active.remove(light)) {
+            getActiveLights().getChildren().remove(light);
+        }
+        light.setLightOn(false);
+    }
+
+    /**
+     * move a light to the cell of its current position
+     *
+     * @param light
+     *      light
+     */
+    public void relocate(LightBase light) {
+        Long key = keys.get(light);
+        if (key == null) {
+            return;
+        }
+        long newKey = key(light);
+        if (key != newKey) {
+            cells.get(key).remove(light);
+            cells.computeIfAbsent(newKey, k -> new ArrayList<>()).add(light);
+            keys.put(light, newKey);
+        }
+    }
+
+    /**
+     * select the lights for a frame and switch them on, all others off
+     *
+     * @param x
+     *      x-position of the camera focus
+     * @param y
+     *      y-position of the camera focus
+     * @param z
+     *      z-position of the camera focus
+     */
+    public void update(double x, double y, double z) {
+        selectedCount = 0;
+
+        // rank the lights of the cells in range
+        long minColumn = GridKey.cell(x - range, cellSize);
+        long maxColumn = GridKey.cell(x + range, cellSize);
+        long minRow = GridKey.cell(y - range, cellSize);
+        long maxRow = GridKey.cell(y + range, cellSize);
+        for (long column = minColumn; column <= maxColumn; column++) {
+            for (long row = minRow; row <= maxRow; row++) {
+                List<LightBase> lights = cells.get(GridKey.key(column, row));
+                if (lights == null) {
+                    continue;
+                }
+                for (LightBase light : lights) {
+                    double distance = distance(light, x, y, z);
+                    if (distance > range) {
+                        continue;
+                    }
+                    // brighter lights reach further, lights that are on are kept a bit longer
+                    double score = distance / Math.max(light.getColor().getBrightness(), 0.01);
+                    if (light.isLightOn()) {
+                        score *= 1 - hysteresis;
+                    }
+                    select(light, score);
+                }
+            }
+        }
+
+        // switch off lights that are not selected anymore
+        for (int i = active.size() - 1; i >= 0; i--) {
+            LightBase light = active.get(i);
+            if (!isSelected(light)) {
+                light.setLightOn(false);
+                active.remove(i);
+                getActiveLights().getChildren().remove(light);
+            }
+        }
+
+        // switch on new lights
+        for (int i = 0; i < selectedCount; i++) {
+            LightBase light = selected[i];
+            if (!light.isLightOn()) {
+                light.setLightOn(true);
+                active.add(light);
+                getActiveLights().getChildren().add(light);
+            }
+        }
+    }
+
+    /**
+     * get the number of lights that are on
+     *
+     * @return
+     *      count
+     */
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * helper function to insert a light into the selection (sorted by score)
+     *
+     * @param light
+     *      light
+     * @param score
+     *      score, lower is better
+     */
+    private void select(LightBase light, double score) {
+        if (maxLights == 0 || (selectedCount == maxLights && score >= scores[maxLights - 1])) {
+            return;
+        }
+        int i = Math.min(selectedCount, maxLights - 1);
+        while (i > 0 && scores[i - 1] > score) {
+            selected[i] = selected[i - 1];
+            scores[i] = scores[i - 1];
+            i--;
+        }
+        selected[i] = light;
+        scores[i] = score;
+        if (selectedCount < maxLights) {
+            selectedCount++;
+        }
+    }
+
+    private boolean isSelected(LightBase light) {
+        for (int i = 0; i < selectedCount; i++) {
+            if (selected[i] == light) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * helper function to get the parent of the lights that are on
+     * created on demand and added to Game.root
+     *
+     * @return
+     *      group
+     */
+    private Group getActiveLights() {
+        if (activeLights == null) {
+            activeLights = new Group();
+            Game.root.getChildren().add(activeLights);
+        }
+        return activeLights;
+    }
+
+    private static double distance(Node node, double x, double y, double z) {
+        double dx = node.getTranslateX() - x;
+        double dy = node.getTranslateY() - y;
+        double dz = node.getTranslateZ() - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private long key(Node node) {
+        return GridKey.key(GridKey.cell(node.getTranslateX(), cellSize), GridKey.cell(node.getTranslateY(), cellSize));
+    }
+}
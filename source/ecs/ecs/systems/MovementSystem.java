@@ -1,22 +1,27 @@
 package ecs.ecs.systems;
 
+import ecs.collision.AABB;
+import ecs.collision.CollisionGrid;
 import ecs.ecs.components.*;
+import ecs.ecs.entities.Archetype;
+import ecs.ecs.entities.ChangeLog;
 import ecs.ecs.entities.Entity;
 import ecs.ecs.entities.EntityManager;
+import ecs.ecs.entities.Query;
 import ecs.ecs.entities.State;
-import ecs.event.EventData;
+import ecs.event.EventQueue;
 import ecs.event.GameEvent;
 import ecs.Game;
 import ecs.settings.Settings;
-import javafx.geometry.Point3D;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Box;
-import javafx.util.Pair;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * performs all movements on entities
@@ -40,39 +45,62 @@ public class MovementSystem implements ECSystem {
 
     // debug
     private boolean debugDummy = Settings.getDebug("MovementSystem@dummy");
-    private boolean debugStepSize = Settings.getDebug("MovementSystem@stepsize");
     private boolean debugBuffer = false;
 
-    // hashmap colliders
-    private HashMap<UUID, Component> colliders;
+    // all entities to move
+    // movers with collider change the collision grid, they are moved serially
+    // movers without collider only read the grid, they are moved in parallel chunks
+    // particles without collider skip collision detection, they are integrated in bulk (parallel chunks)
+    // particles with collider are moved like all movers with collider
+    private Query colliderMovers = new Query(VelocityComponent.class, PositionComponent.class, ColliderComponent.class);
+    private Query freeMovers = new Query(VelocityComponent.class, PositionComponent.class).without(ColliderComponent.class, ParticleComponent.class);
+    private Query particles = new Query(VelocityComponent.class, PositionComponent.class, ParticleComponent.class).without(ColliderComponent.class);
 
-    // dummy box for collision detection
+    // collision grid (broadphase)
+    private CollisionGrid collisionGrid = CollisionGrid.getInstance();
+
+    // collision state of the serial part
+    private Sweeper serial = new Sweeper(false);
+
+    // parallel loop over movers without collider, one sweeper per chunk
+    private ParallelFor<Sweeper> parallelFor = new ParallelFor<>(Settings.getParallelChunkSize(), Settings.getParallelMinEntities(), () -> new Sweeper(true));
+
+    // parallel loop over particles, one event buffer per chunk
+    private ParallelFor<EventQueue> particleFor = new ParallelFor<>(Settings.getParallelChunkSize(), Settings.getParallelMinEntities(), EventQueue::new);
+
+    // visible dummy box, debug only
     private Box dummyBox = new Box(0,0,0);
 
-    // safe spot
-    // we beam the collider to a place outside the game area
-    // during collision detection to prevent self-collision
-    // axis origin is where map creation start, it should be empty
-    // if the entity is to big consider using negative values or in a 2D game offsetting on z-axis
-    // another approach would be using enabled-state of the component
-    private Point3D safeSpot = Settings.getSafeSpot();
+    // render commands
+    private SnapshotExchange snapshotExchange = SnapshotExchange.getInstance();
+
+    // change logs of position, shape, collider and light components
+    private ChangeLog.Reader[] readers = {
+            EntityManager.getChangeLog(PositionComponent.class).newReader(),
+            EntityManager.getChangeLog(ShapeComponent.class).newReader(),
+            EntityManager.getChangeLog(ColliderComponent.class).newReader(),
+            EntityManager.getChangeLog(LightComponent.class).newReader()
+    };
+
+    // entities with added or changed components, reused
+    private Set<Entity> touched = new LinkedHashSet<>();
 
     // fallback dummy size
     // is used when entity has no shape and no collider
-    private Box fallBackSize = Settings.getFallBackSize();
+    private double fallBackSize = Settings.getFallBackSize();
+
+    // idle ticks until an entity falls asleep
+    private int sleepTicks = Settings.getSleepTicks();
 
-    // stepsize defines the max vector length of velocity
-    // it should not be greater than the smallest entity on the map
-    // otherwise collision detection could fail and the moving entity would magically jumping over it
-    // decreasing this value will decrease performance as well
-    // because we have to traverse all entities more often during collision detection
-    private int stepsize = Settings.getStepsize();
 
     /**
      * constructor
      */
     public MovementSystem() {
 
+        // fit the collision grid to the level
+        collisionGrid.init(levelWidth, levelHeight);
+
         if (debugDummy) {
             PhongMaterial material = new PhongMaterial();
             material.setDiffuseColor(Color.RED);
@@ -81,65 +109,78 @@ public class MovementSystem implements ECSystem {
         }
     }
 
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(VelocityComponent.class, PositionComponent.class, ColliderComponent.class, ShapeComponent.class, LightComponent.class);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> writes() {
+        return ECSystem.components(VelocityComponent.class, PositionComponent.class, ColliderComponent.class, ShapeComponent.class, LightComponent.class);
+    }
+
+    // writes render commands
+    @Override
+    public boolean isThreadBound() {
+        return true;
+    }
+
     @Override
     public void run(boolean debug) {
         if(debug) System.err.println("MovementSystem <start>");
         int count = 0;
 
 
-        // === PART 1 - POSITION ENTITIES FROM UPDATE-BUFFER ===
-        // all entities in buffer will be placed in the world
+        // === PART 1 - POSITION NEW OR CHANGED ENTITIES ===
+        // all entities with added (or explicitly changed, see ChangeLog) position, shape, collider or light
+        // will be placed in the world
+        // moves of part 2 are applied there (colliders) and by the InterpolationSystem (shapes & lights)
         // translate: shapes, colliders & lights
 
-        // get buffer
-        HashMap<UUID, Entity> entities = EntityManager.entitiesUpdateBuffer;
+        // collect entities from the change logs
+        RenderSnapshot snapshot = snapshotExchange.getBack();
+        touched.clear();
+        for (ChangeLog.Reader reader : readers) {
+            while (reader.next()) {
+                if (reader.getKind() != ChangeLog.REMOVED) {
+                    touched.add(reader.getEntity());
+                }
+            }
+        }
 
-        for(Map.Entry<UUID, Entity> entry : entities.entrySet()) {
-//            UUID uuid = entry.getKey();
-            Entity entity = entry.getValue();
+        for(Entity entity : touched) {
             State entityState = entity.getState();
             if (debugBuffer) System.out.println("entity state: "+entityState);
+            if (entityState == State.DELETE) {
+                continue;
+            }
 
-            if (entity.hasComponent(PositionComponent.class)) {
-
-                // get position component & data
-                PositionComponent positionComponent = (PositionComponent) entity.getComponent(PositionComponent.class);
-                Point3D position = positionComponent.getValue();
-                State positionComponentState = positionComponent.getState();
-                if (debugBuffer) System.out.println("position state: "+positionComponentState);
+            // get position component & data
+            PositionComponent positionComponent = entity.tryGetComponent(PositionComponent.class);
+            if (positionComponent != null) {
+                double x = positionComponent.getX();
+                double y = positionComponent.getY();
+                double z = positionComponent.getZ();
 
                 // update shape
-                if (entity.hasComponent(ShapeComponent.class)) {
+                ShapeComponent shapeComponent = entity.tryGetComponent(ShapeComponent.class);
+                if (shapeComponent != null) {
                     count++;
-                    ShapeComponent component = (ShapeComponent) entity.getComponent(ShapeComponent.class);
-                    State componentState = component.getState();
-                    if (debugBuffer) System.out.println("component state: "+componentState);
-                    if (positionComponentState == State.UPDATE || component.getState() == State.UPDATE) {
-                        component.translate(position);
-                    }
+                    snapshot.place(shapeComponent.getValue(), x, y, z);
                 }
 
                 // update collider
-                if (entity.hasComponent(ColliderComponent.class)) {
+                ColliderComponent colliderComponent = entity.tryGetComponent(ColliderComponent.class);
+                if (colliderComponent != null) {
                     count++;
-                    ColliderComponent component = (ColliderComponent) entity.getComponent(ColliderComponent.class);
-                    State componentState = component.getState();
-                    if (debugBuffer) System.out.println("component state: "+componentState);
-                    if (positionComponentState == State.UPDATE || component.getState() == State.UPDATE) {
-                        component.translate(position);
-                    }
+                    colliderComponent.translate(x, y, z);
                 }
 
                 // update light
-                if (entity.hasComponent(LightComponent.class)) {
+                LightComponent lightComponent = entity.tryGetComponent(LightComponent.class);
+                if (lightComponent != null) {
                     count++;
-                    LightComponent component = (LightComponent) entity.getComponent(LightComponent.class);
-                    State componentState = component.getState();
-                    if (debugBuffer) System.out.println("component state: "+componentState);
-                    if (positionComponentState == State.UPDATE || component.getState() == State.UPDATE) {
-                        component.translate(position);
-                    }
-                    component.setState(State.STABLE);
+                    snapshot.place(lightComponent.getValue(), x, y, z);
                 }
             }
         }
@@ -148,82 +189,33 @@ public class MovementSystem implements ECSystem {
         // === PART 2 - RE-POSITIONING ENTITIES ON CHANGE ===
         // all entities with velocity need to be updated on every tick
         // requirements: position, velocity
-        // translate: shapes, colliders & lights
-
-        HashMap<UUID, Component> components = entityManager.components.get(VelocityComponent.class);
+        // translate: colliders (shapes & lights are placed by the InterpolationSystem)
 
         // check if we there are any velocityComponents
-        if (components == null) {
+        if (colliderMovers.getArchetypes().isEmpty() && freeMovers.getArchetypes().isEmpty() && particles.getArchetypes().isEmpty()) {
             if(debug) System.out.println("entities to move: 0");
         } else {
-            if(debug) System.out.println("entities to move: " + components.size());
-
-            // traverse all velocityComponents
-            for(Map.Entry<UUID, ? extends Component> entry : components.entrySet()) {
-                UUID uuid = entry.getKey();
-                Component component = entry.getValue();
-                Entity entity = entityManager.getEntity(uuid);
-
-                // check if component is enabled and has a position
-                // assume it has a velocity, otherwise it would not be in this list
-                if (component.isEnabled() && entity.hasComponent(PositionComponent.class)) {
-
-                    // get velocity & position
-                    Point3D velocity = (Point3D) component.getValue();
-                    PositionComponent positionComponent = (PositionComponent) entity.getComponent(PositionComponent.class);
-                    Point3D position = positionComponent.getValue();
-
-                    // check if entity needs an update (velocity is != 0)
-                    if (velocity.magnitude() != 0) {
-                        count++;
+            if(debug) System.out.println("entities to move: " + (colliderMovers.size() + freeMovers.size() + particles.size()));
 
+            // movers with collider, one after another
+            // every move is visible to the following collision detections
+            for (Archetype archetype : colliderMovers.getArchetypes()) {
+                count += move(archetype, 0, archetype.size(), serial);
+            }
+            flush(serial);
+
+            // movers without collider, chunks may run in parallel
+            // the grid is not changed anymore, prepare it for concurrent reads
+            collisionGrid.prepare();
+            count += parallelFor.run(freeMovers, this::move);
+            for (int chunk = 0; chunk < parallelFor.getChunkCount(); chunk++) {
+                flush(parallelFor.getContext(chunk));
+            }
 
-                        // === PART 3 - COLLISION DETECTION ===
-
-                        // before running collision detection, we move the collider to a safe spot to prevent self-collision
-                        // the position will be reset automatically when applying the new position
-                        if (entity.hasComponent(ColliderComponent.class)) {
-                            count++;
-                            ((ColliderComponent) entity.getComponent(ColliderComponent.class)).translate(safeSpot);
-                        }
-
-                        // run collision detection
-                        velocity = collisionDetection(entity, position, velocity);
-
-                        // update position (add vector to current position)
-                        position = new Point3D(position.getX() + velocity.getX(), position.getY() + velocity.getY(), position.getZ() + velocity.getZ());
-
-                        // check if we have left the map and in case throw an event
-                        if (position.getY() < 0 || position.getY() > levelHeight ||
-                            position.getX() < 0 || position.getX() > levelWidth) {
-                            GameEvent event = new GameEvent(GameEvent.OUT_OF_WORLD);
-                            event.addData(EventData.CollisionUUID, uuid);
-                            eventCommandSystem.addEvent(event);
-                        }
-
-                        // store velocity and position in it's components
-                        component.setValue(velocity);
-                        positionComponent.setValue(position);
-
-                        // update shape position
-                        if (entity.hasComponent(ShapeComponent.class)) {
-                            count++;
-                            ((ShapeComponent) entity.getComponent(ShapeComponent.class)).translate(position);
-                        }
-
-                        // update collider position
-                        if (entity.hasComponent(ColliderComponent.class)) {
-                            count++;
-                            ((ColliderComponent) entity.getComponent(ColliderComponent.class)).translate(position);
-                        }
-
-                        // update light position
-                        if (entity.hasComponent(LightComponent.class)) {
-                            count++;
-                            ((LightComponent) entity.getComponent(LightComponent.class)).translate(position);
-                        }
-                    }
-                }
+            // particles, chunks may run in parallel
+            count += particleFor.run(particles, this::integrate);
+            for (int chunk = 0; chunk < particleFor.getChunkCount(); chunk++) {
+                flush(particleFor.getContext(chunk));
             }
         }
 
@@ -234,287 +226,428 @@ public class MovementSystem implements ECSystem {
     }
 
     /**
-     * collision detection
+     * move a chunk of rows
      *
-     * @param entity
-     *      entity to check against colliders
-     * @param position
-     *      current position of the entity
-     * @param velocity
-     *      current velocity of the entity
+     * @param archetype
+     *      archetype
+     * @param from
+     *      first row
+     * @param to
+     *      last row (exclusive)
+     * @param sweeper
+     *      collision state
      * @return
-     *      updated velocity vector
+     *      number of moved components
      */
-    private Point3D collisionDetection(Entity entity, Point3D position, Point3D velocity) {
-
-
-        // === PART 4 - ROUGH ESTIMATION ===
-        // look if desired field is empty
-
-        // get all colliders from entity-manager
-        colliders = entityManager.components.get(ColliderComponent.class);
+    private int move(Archetype archetype, int from, int to, Sweeper sweeper) {
+        int count = 0;
+        Component[] velocityComponents = archetype.getColumn(VelocityComponent.class);
+        Component[] positionComponents = archetype.getColumn(PositionComponent.class);
+        // optional columns, null if the archetype does not store them
+        Component[] shapeComponents = archetype.getColumn(ShapeComponent.class);
+        Component[] colliderComponents = archetype.getColumn(ColliderComponent.class);
+
+        for (int row = from; row < to; row++) {
+            VelocityComponent component = (VelocityComponent) velocityComponents[row];
+            Entity entity = archetype.getEntity(row);
+
+            // check if component is enabled and entity is awake
+            if (component.isEnabled() && !component.isSleeping()) {
+
+                // get position
+                PositionComponent positionComponent = (PositionComponent) positionComponents[row];
+                positionComponent.storePrevious();
+
+                // check if entity needs an update (velocity is != 0)
+                if (component.isZero()) {
+                    idle(component);
+                } else {
+                    count++;
 
-        // we use a dummy for collision detection instead of the real object,
-        // so we don't have to undo translations when encountering a collision
 
-        // prepare the dummy
-        Box reference;
-        // get dimension from collider shape if available
-        if (entity.hasComponent(ColliderComponent.class)) {
-            reference = (Box) entity.getComponent(ColliderComponent.class).getValue();
-        }
-        // or try to get the size from the shape
-        else if (entity.hasComponent(ShapeComponent.class)) {
-            reference = (Box) entity.getComponent(ShapeComponent.class).getValue();
-        }
-        // if the entity has not a shape (e.g. it's a light), take the fallback size
-        else {
-            reference = fallBackSize;
-        }
+                    // === PART 3 - COLLISION DETECTION ===
+
+                    // get dimension from collider shape if available
+                    // or try to get the size from the shape
+                    // if the entity has not a shape (e.g. it's a light), take the fallback size
+                    double width, height, depth;
+                    if (colliderComponents != null) {
+                        AABB reference = ((ColliderComponent) colliderComponents[row]).getValue();
+                        width = reference.getWidth();
+                        height = reference.getHeight();
+                        depth = reference.getDepth();
+                    } else if (shapeComponents != null) {
+                        Box reference = ((ShapeComponent) shapeComponents[row]).getValue();
+                        width = reference.getWidth();
+                        height = reference.getHeight();
+                        depth = reference.getDepth();
+                    } else {
+                        width = fallBackSize;
+                        height = fallBackSize;
+                        depth = fallBackSize;
+                    }
 
-        dummyBox.setHeight(reference.getHeight());
-        dummyBox.setWidth(reference.getWidth());
-        dummyBox.setDepth(reference.getDepth());
+                    // run collision detection, the resolved velocity is stored in sweeper.move
+                    collisionDetection(sweeper, entity, width, height, depth, positionComponent, component);
+                    double[] move = sweeper.move;
 
-        // check collision on maxed point of movement
-        // this only works if speed is <= blocksize
-        // we should test velocity on violating this rule
+                    // store velocity and position in it's components
+                    component.set(move[0], move[1], move[2]);
+                    positionComponent.add(move[0], move[1], move[2]);
+                    double x = positionComponent.getX();
+                    double y = positionComponent.getY();
 
-        // calculate required steps to reach the target
-        int steps = (int) Math.ceil( velocity.magnitude() /stepsize );
+                    // check if we have left the map and in case throw an event
+                    if (y < 0 || y > levelHeight || x < 0 || x > levelWidth) {
+                        sweeper.events.claim(GameEvent.OUT_OF_WORLD).setEntity(entity.getId());
+                    }
 
-        // define a boolean to store collision
-        boolean collision = false;
+                    // blocked entities count as idle
+                    if (component.isZero()) {
+                        idle(component);
+                    } else {
+                        component.idleTicks = 0;
+                    }
 
-        // create an empty container, to store the box we hit
-        Pair<UUID, Box> crashBoxVelocity = null;
+                    // update collider position
+                    if (colliderComponents != null) {
+                        count++;
+                        ((ColliderComponent) colliderComponents[row]).translate(x, y, positionComponent.getZ());
+                    }
 
-        // check steps on collision
-        for (int i = 1; i<= steps; i++) {
-            dummyBox.setTranslateX(position.getX() + (velocity.getX() / steps * i));
-            dummyBox.setTranslateY(position.getY() + (velocity.getY() / steps * i));
-            dummyBox.setTranslateZ(position.getZ() + (velocity.getZ() / steps * i));
+                    // shapes and lights are placed by the InterpolationSystem on every frame
+                }
+            }
+        }
+        return count;
+    }
 
-            // traverse all colliders to detect collision
-            crashBoxVelocity = traverseColliders();
-            if (crashBoxVelocity.getValue() != null) {
+    /**
+     * integrate a chunk of particles
+     *
+     * works on the primitive columns of the archetype: the position update is plain arithmetic
+     * over contiguous double[] (no branches, no calls), a loop shape the JIT can auto-vectorize,
+     * flagging the changed positions is a separate scalar loop
+     * sleeping or disabled velocity is factor 0
+     *
+     * @param archetype
+     *      archetype
+     * @param from
+     *      first row
+     * @param to
+     *      last row (exclusive)
+     * @param events
+     *      event buffer of the chunk
+     * @return
+     *      number of entities processed
+     */
+    private int integrate(Archetype archetype, int from, int to, EventQueue events) {
+        double[][] position = archetype.getPacked(PositionComponent.class);
+        double[][] velocity = archetype.getPacked(VelocityComponent.class);
+        double[] x = position[PositionComponent.X], previousX = position[PositionComponent.PREVIOUS_X];
+        double[] y = position[PositionComponent.Y], previousY = position[PositionComponent.PREVIOUS_Y];
+        double[] z = position[PositionComponent.Z], previousZ = position[PositionComponent.PREVIOUS_Z];
+        Component[] positionComponents = archetype.getColumn(PositionComponent.class);
+        double[] velocityX = velocity[VelocityComponent.X];
+        double[] velocityY = velocity[VelocityComponent.Y];
+        double[] velocityZ = velocity[VelocityComponent.Z];
+        double[] active = velocity[VelocityComponent.ACTIVE];
+
+        // remember the previous position
+        System.arraycopy(x, from, previousX, from, to - from);
+        System.arraycopy(y, from, previousY, from, to - from);
+        System.arraycopy(z, from, previousZ, from, to - from);
+
+        // flag the moving particles as changed (see ChangedSet)
+        for (int row = from; row < to; row++) {
+            if (active[row] != 0) {
+                ((PositionComponent) positionComponents[row]).markChanged();
+            }
+        }
 
-                if (debugStepSize && steps>1) System.out.println("MovementSystem: collision detection steps: "+i+"/"+steps);
+        // update position (add vector to current position)
+        for (int row = from; row < to; row++) {
+            x[row] += velocityX[row] * active[row];
+            y[row] += velocityY[row] * active[row];
+            z[row] += velocityZ[row] * active[row];
+        }
 
-                // if we encounter a collision, mark it
-                // we have to go further ...
-                collision = true;
-                break;
+        // check if we have left the map and in case throw an event
+        for (int row = from; row < to; row++) {
+            if (y[row] < 0 || y[row] > levelHeight || x[row] < 0 || x[row] > levelWidth) {
+                events.claim(GameEvent.OUT_OF_WORLD).setEntity(archetype.getEntity(row).getId());
             }
         }
+        return to - from;
+    }
 
+    /**
+     * apply buffered wake-ups and pass buffered events to the event-system
+     * has to run on the calling thread, chunks are flushed in chunk order
+     *
+     * @param sweeper
+     *      collision state of a worker
+     */
+    private void flush(Sweeper sweeper) {
+        for (VelocityComponent velocityComponent : sweeper.wakes) {
+            velocityComponent.wake();
+        }
+        sweeper.wakes.clear();
+        flush(sweeper.events);
+    }
 
-        // === PART 5 - GATHER DETAILS ===
-        // on collision, get some details about where the collision happened
-
-        // if we encounter a collision, we have to go further
-        if(collision) {
+    /**
+     * pass buffered events to the event-system
+     * has to run on the calling thread
+     *
+     * @param events
+     *      buffered events of a worker
+     */
+    private void flush(EventQueue events) {
+        for (int i = 0; i < events.size(); i++) {
+            eventCommandSystem.addEvent(events.get(i));
+        }
+        events.clear();
+    }
 
-            // create event
-            GameEvent gameEvent = new GameEvent(GameEvent.COLLISION);
-            gameEvent.addData(EventData.CollisionUUID, entity);
+    /**
+     * collision detection
+     *
+     * swept aabb: each axis is swept once against all colliders along the way,
+     * the nearest time of impact gives the exact contact position
+     * there is no limit on the speed, fast movers can not tunnel through thin colliders
+     *
+     * @param sweeper
+     *      collision state
+     * @param entity
+     *      entity to check against colliders
+     * @param width
+     *      width of the entity
+     * @param height
+     *      height of the entity
+     * @param depth
+     *      depth of the entity
+     * @param position
+     *      current position of the entity
+     * @param velocity
+     *      current velocity of the entity
+     */
+    private void collisionDetection(Sweeper sweeper, Entity entity, double width, double height, double depth, PositionComponent position, VelocityComponent velocity) {
 
-            // define a vector to store the axis of collision
-            // great for later event handling
-            Point3D collisionVector = new Point3D(0,0,0);
 
-            // "crawling corners"-bug
+        // === PART 4 - SWEEP ===
 
-            //      X
-            //      Xo
-            //      ZXX
+        // we use a dummy for collision detection instead of the real object,
+        // so we don't have to undo translations when encountering a collision
+        AABB dummy = sweeper.dummy;
 
-            // assuming entity (o) is in a corner, two key input velocity detect only the diagonal block (Z)
-            // x-axis movement will be blocked, but y-axis-collision will be ignored
-            // so the entity can crawl into the corner
-            // to prevent this, we have to check each axis for collision
+        // prepare the dummy
+        sweeper.self = entity.getId();
+        dummy.setSize(width, height, depth);
+        dummy.setPosition(position.getX(), position.getY(), position.getZ());
+
+        // "crawling corners"-bug
+
+        //      X
+        //      Xo
+        //      ZXX
+
+        // assuming entity (o) is in a corner, a diagonal sweep would only detect the diagonal block (Z)
+        // x-axis movement will be blocked, but y-axis-collision will be ignored
+        // so the entity can crawl into the corner
+        // to prevent this, we sweep each axis on its own, starting from the already resolved position
+
+        double[] move = sweeper.move;
+        move[0] = velocity.getX();
+        move[1] = velocity.getY();
+        move[2] = velocity.getZ();
+
+        // collisionVector stores the velocity on the sides collision was detected
+        // normal stores the surface normal of the hit sides
+        // hits stores the collider hit on each axis
+        double[] collisionVector = sweeper.collisionVector;
+        double[] normal = sweeper.normal;
+        ColliderComponent[] hits = sweeper.hits;
+        Arrays.fill(collisionVector, 0);
+        Arrays.fill(normal, 0);
+        Arrays.fill(hits, null);
+
+        for (int axis = AABB.X_AXIS; axis <= AABB.Z_AXIS; axis++) {
+            if (move[axis] == 0) {
+                continue;
+            }
 
+            // time of impact on this axis
+            double time = sweeper.sweep(axis, move[axis]);
+            if (time != AABB.NO_HIT) {
+                collisionVector[axis] = move[axis];
+                normal[axis] = -Math.signum(move[axis]);
+                move[axis] *= time;
+                hits[axis] = sweeper.hit;
+            }
 
-            // detailed position & collision vector
+            // move the dummy to the resolved position of this axis
+            if (axis == AABB.X_AXIS) dummy.setX(position.getX() + move[axis]);
+            else if (axis == AABB.Y_AXIS) dummy.setY(position.getY() + move[axis]);
+            else dummy.setZ(position.getZ() + move[axis]);
+        }
 
-            // if we detect a collision we need to know where exactly,
-            // and on which axis collision happened
-            // if we stretch the dummy on the axis we want to check, we can detect collisions before we get stuck in the block
-            // collisionVector stores the sides on which collision was detected
 
-            // check x-axis
-            if (velocity.getX() != 0) {
-                boolean xCollision = false;
+        // === PART 5 - PACK RESULTS AND PASS EVENT TO LOGIC ===
+        // since we do not want to extend this class anymore
+        // we create a nice little package and put it into the event stack
+        // shall the event stack decide, how to handle it
 
-                // prevent crawling corners
-                dummyBox.setTranslateX(position.getX() + velocity.getX());
-                dummyBox.setTranslateY(position.getY());
-                dummyBox.setTranslateZ(position.getZ());
-                Pair<UUID, Box> crashBoxAxis = traverseColliders();
+        // one event per collider hit, axes that hit the same collider are merged into one event
+        // e.g. sliding down a wall and landing in the same tick raises a collision with the wall and the floor
+        for (int axis = AABB.X_AXIS; axis <= AABB.Z_AXIS; axis++) {
+            ColliderComponent collider = hits[axis];
+            // no hit, or merged into the event of an earlier axis
+            if (collider == null || (axis > AABB.X_AXIS && hits[AABB.X_AXIS] == collider)
+                    || (axis > AABB.Y_AXIS && hits[AABB.Y_AXIS] == collider)) {
+                continue;
+            }
 
-                // check positive x-axis
-                dummyBox.setWidth(dummyBox.getWidth()+2);
-                for (double i=0; i<velocity.getX(); i++) {
-                    dummyBox.setTranslateX(position.getX() + i);
-                    boolean velCollision = getCollision(dummyBox, crashBoxVelocity.getValue());
-                    boolean axisCollision = getCollision(dummyBox, crashBoxAxis.getValue());
-                    if (velCollision || axisCollision) {
-                        collisionVector = new Point3D(velocity.getX(), collisionVector.getY(), collisionVector.getZ());
-                        velocity = new Point3D(i, velocity.getY(), velocity.getZ());
-                        xCollision = true;
-                        break;
-                    }
-                }
-                // check negative x-axis
-                for (double i=0; i>velocity.getX(); i--) {
-                    dummyBox.setTranslateX(position.getX() + i);
-                    boolean velCollision = getCollision(dummyBox, crashBoxVelocity.getValue());
-                    boolean axisCollision = getCollision(dummyBox, crashBoxAxis.getValue());
-                    if (velCollision || axisCollision) {
-                        collisionVector = new Point3D(velocity.getX(), collisionVector.getY(), collisionVector.getZ());
-                        velocity = new Point3D(i, velocity.getY(), velocity.getZ());
-                        xCollision = true;
-                        break;
-                    }
+            GameEvent gameEvent = sweeper.events.claim(GameEvent.COLLISION);
+            gameEvent.setEntity(entity.getId());
+            gameEvent.setCollider(collider.getEntity().getId());
+            gameEvent.setVelocity(
+                    hits[0] == collider ? collisionVector[0] : 0,
+                    hits[1] == collider ? collisionVector[1] : 0,
+                    hits[2] == collider ? collisionVector[2] : 0);
+            gameEvent.setNormal(
+                    hits[0] == collider ? normal[0] : 0,
+                    hits[1] == collider ? normal[1] : 0,
+                    hits[2] == collider ? normal[2] : 0);
+
+            // wake up the entity we hit
+            // concurrent sweepers must not write shared components, the wake-up is applied in flush()
+            VelocityComponent colliderVelocity = collider.getEntity().tryGetComponent(VelocityComponent.class);
+            if (colliderVelocity != null) {
+                if (sweeper.concurrent) {
+                    sweeper.wakes.add(colliderVelocity);
+                } else {
+                    colliderVelocity.wake();
                 }
-                dummyBox.setWidth(dummyBox.getWidth()-2);
-
-                // add collider to event
-                if (xCollision) gameEvent.addData(EventData.ColliderUUID, crashBoxAxis);
             }
+        }
 
-            // check y-axis
-            if (velocity.getY() != 0) {
-                boolean yCollision = false;
-
-                // prevent crawling corners
-                dummyBox.setTranslateX(position.getX());
-                dummyBox.setTranslateY(position.getY() + velocity.getY());
-                dummyBox.setTranslateZ(position.getZ());
-                Pair<UUID, Box> crashBoxAxis = traverseColliders();
-
-                // check positive y-axis
-                dummyBox.setHeight(dummyBox.getHeight()+2);
-                for (double i=0; i<velocity.getY(); i++) {
-                    dummyBox.setTranslateY(position.getY() + i);
-                    boolean velCollision = getCollision(dummyBox, crashBoxVelocity.getValue());
-                    boolean axisCollision = getCollision(dummyBox, crashBoxAxis.getValue());
-                    if (velCollision || axisCollision) {
-                        collisionVector = new Point3D(collisionVector.getX(), velocity.getY(), collisionVector.getZ());
-                        velocity = new Point3D(velocity.getX(), i, velocity.getZ());
-                        yCollision = true;
-                        break;
-                    }
-                }
-                // check negative y-axis
-                for (double i=0; i>velocity.getY(); i--) {
-                    dummyBox.setTranslateY(position.getY() + i);
-                    boolean velCollision = getCollision(dummyBox, crashBoxVelocity.getValue());
-                    boolean axisCollision = getCollision(dummyBox, crashBoxAxis.getValue());
-                    if (velCollision || axisCollision) {
-                        collisionVector = new Point3D(collisionVector.getX(), velocity.getY(), collisionVector.getZ());
-                        velocity = new Point3D(velocity.getX(), i, velocity.getZ());
-                        yCollision = true;
-                        break;
-                    }
-                }
-                dummyBox.setHeight(dummyBox.getHeight()-2);
+        // show the dummy
+        if (debugDummy && !sweeper.concurrent) {
+            double x = dummy.getX(), y = dummy.getY(), z = dummy.getZ();
+            double dummyWidth = dummy.getWidth(), dummyHeight = dummy.getHeight(), dummyDepth = dummy.getDepth();
+            snapshotExchange.getBack().runLater(() -> {
+                dummyBox.setWidth(dummyWidth);
+                dummyBox.setHeight(dummyHeight);
+                dummyBox.setDepth(dummyDepth);
+                dummyBox.setTranslateX(x);
+                dummyBox.setTranslateY(y);
+                dummyBox.setTranslateZ(z);
+            });
+        }
+    }
 
-                // add collider to event
-                if (yCollision) gameEvent.addData(EventData.ColliderUUID, crashBoxAxis);
-            }
+    /**
+     * helper method to count idle ticks
+     * the entity falls asleep when it was idle for too long
+     *
+     * @param velocityComponent
+     *      velocity of the entity
+     */
+    private void idle(VelocityComponent velocityComponent) {
+        if (++velocityComponent.idleTicks >= sleepTicks) {
+            velocityComponent.sleep();
+        }
+    }
 
-            // check z-axis
-            if (velocity.getZ() != 0) {
-                boolean zCollision = false;
-
-                // prevent crawling corners
-                dummyBox.setTranslateX(position.getX());
-                dummyBox.setTranslateY(position.getY());
-                dummyBox.setTranslateZ(position.getZ() + velocity.getZ());
-                Pair<UUID, Box> crashBoxAxis = traverseColliders();
-
-                // check positive z-axis
-                dummyBox.setDepth(dummyBox.getDepth()+2);
-                for (double i=0; i<velocity.getZ(); i++) {
-                    dummyBox.setTranslateZ(position.getZ() + i);
-                    boolean velCollision = getCollision(dummyBox, crashBoxVelocity.getValue());
-                    boolean axisCollision = getCollision(dummyBox, crashBoxAxis.getValue());
-                    if (velCollision || axisCollision) {
-                        collisionVector = new Point3D(collisionVector.getX(), collisionVector.getY(), velocity.getZ());
-                        velocity = new Point3D(velocity.getX(), velocity.getY(), i);
-                        zCollision = true;
-                        break;
-                    }
-                }
-                // check negative z-axis
-                for (double i=0; i>velocity.getZ(); i--) {
-                    dummyBox.setTranslateZ(position.getZ() + i);
-                    boolean velCollision = getCollision(dummyBox, crashBoxVelocity.getValue());
-                    boolean axisCollision = getCollision(dummyBox, crashBoxAxis.getValue());
-                    if (velCollision || axisCollision) {
-                        collisionVector = new Point3D(collisionVector.getX(), collisionVector.getY(), velocity.getZ());
-                        velocity = new Point3D(velocity.getX(), velocity.getY(), i);
-                        zCollision = true;
-                        break;
-                    }
-                }
-                dummyBox.setDepth(dummyBox.getDepth()-2);
+    /**
+     * collision state of one worker
+     * serial and parallel parts each use their own sweeper
+     */
+    private class Sweeper {
+        // sweeper runs concurrently with others, it must not change the grid
+        final boolean concurrent;
 
-                // add collider to event
-                if (zCollision) gameEvent.addData(EventData.ColliderUUID, crashBoxAxis);
-            }
+        // dummy box for collision detection
+        final AABB dummy = new AABB(0,0,0);
+
+        // reusable list of collision candidates
+        final List<ColliderComponent> candidates = new ArrayList<>();
 
+        // buffered wake-ups of hit colliders (concurrent sweepers only), applied in flush()
+        final List<VelocityComponent> wakes = new ArrayList<>();
 
-            // === PART 6 - PACK RESULTS AND PASS EVENT TO LOGIC ===
-            // since we do not want to extend this class anymore
-            // we create a nice little package and put it into the event stack
-            // shall the event stack decide, how to handle it
+        // buffered events, passed to the event-system in flush()
+        final EventQueue events = new EventQueue();
 
-            // push collision event into the event-stack
-            gameEvent.addData(EventData.VELOCITY, collisionVector);
-            eventCommandSystem.addEvent(gameEvent);
+        // resolved velocity, collision vector, normal and colliders hit per axis of the last collision detection (reused)
+        final double[] move = new double[3];
+        final double[] collisionVector = new double[3];
+        final double[] normal = new double[3];
+        final ColliderComponent[] hits = new ColliderComponent[3];
 
+        // id of the entity running collision detection
+        // its own collider is skipped to prevent self-collision
+        long self;
+
+        // nearest collider of the last sweep
+        ColliderComponent hit;
+
+        Sweeper(boolean concurrent) {
+            this.concurrent = concurrent;
         }
 
-        // return updated velocity
-        return velocity;
-    }
+        /**
+         * sweep the dummy along an axis against all colliders nearby
+         * the collision grid (broadphase) returns only colliders in cells overlapping the swept area
+         * the collider of the moving entity itself is skipped by its id
+         * the nearest collider is stored in hit
+         *
+         * @param axis
+         *      AABB.X_AXIS, AABB.Y_AXIS or AABB.Z_AXIS
+         * @param distance
+         *      signed distance to move
+         * @return
+         *      time of impact 0..1 or AABB.NO_HIT
+         */
+        double sweep(int axis, double distance) {
+
+            // swept area
+            double minX = dummy.minX, maxX = dummy.maxX;
+            double minY = dummy.minY, maxY = dummy.maxY;
+            if (axis == AABB.X_AXIS) {
+                if (distance > 0) maxX += distance; else minX += distance;
+            } else if (axis == AABB.Y_AXIS) {
+                if (distance > 0) maxY += distance; else minY += distance;
+            }
 
-    /**
-     * helper method to check collision of dummyBox and ALL colliders
-     *
-     * @return
-     *      collider on collision else null
-     */
-    private Pair<UUID, Box> traverseColliders() {
+            // get colliders along the way
+            // concurrent sweepers use the read-only query (duplicates do not matter, we keep the nearest)
+            candidates.clear();
+            if (concurrent) {
+                collisionGrid.collect(minX - AABB.EPSILON, minY - AABB.EPSILON, maxX + AABB.EPSILON, maxY + AABB.EPSILON, candidates);
+            } else {
+                collisionGrid.query(minX - AABB.EPSILON, minY - AABB.EPSILON, maxX + AABB.EPSILON, maxY + AABB.EPSILON, candidates);
+            }
 
-        // traverse all colliderComponents
-        for(Map.Entry<UUID, ? extends Component> collider : colliders.entrySet()) {
-            UUID uuidCollider = collider.getKey();
-            Component colliderComponent = collider.getValue();
+            // traverse candidates, keep the nearest
+            double nearest = AABB.NO_HIT;
+            hit = null;
+            for (int i = 0; i < candidates.size(); i++) {
+                ColliderComponent colliderComponent = candidates.get(i);
 
-            Box colliderBox = (Box) colliderComponent.getValue();
+                // prevent self-collision
+                if (colliderComponent.getEntity().getId() == self) {
+                    continue;
+                }
 
-            if(getCollision(dummyBox, colliderBox)) {
-                return new Pair<>(uuidCollider, colliderBox);
+                double time = dummy.sweep(axis, distance, colliderComponent.getValue());
+                if (time < nearest) {
+                    nearest = time;
+                    hit = colliderComponent;
+                }
             }
+            return nearest;
         }
-        return new Pair<>(null, null);
-    }
-
-    /**
-     * helper method to detect if two shapes collide
-     *
-     * @param s1
-     *      shape 1
-     * @param s2
-     *      shape 2
-     * @return
-     *      boolean intersection
-     */
-    private boolean getCollision(Box s1, Box s2) {
-        if(s1 == null || s2 == null) return false;
-        return s1.getBoundsInParent().intersects(s2.getBoundsInParent());
     }
-}
\ No newline at end of file
+}
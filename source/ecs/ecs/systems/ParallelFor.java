@@ -0,0 +1,230 @@
+package ecs.ecs.systems;
+
+import ecs.ecs.entities.Archetype;
+import ecs.ecs.entities.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * parallel for over all entities of a query
+ *
+ * the rows of every matching archetype are split into chunks of chunkSize rows,
+ * the chunks are processed on the fork/join pool
+ * below minCount entities all chunks are processed serially on the calling thread
+ *
+ * every chunk gets its own context (e.g. a buffer for events),
+ * contexts are reused on the next run and can be read in chunk order after the run,
+ * so merged results are the same as in a serial run
+ *
+ * the body must only write to the rows of its chunk (and its context)
+ * no structural changes (add/remove entities or components) while running
+ *
+ * @param <C>
+ *      context type
+ */
+public class ParallelFor<C> {
+
+    /**
+     * body of the loop, processes rows from .. to-1 of an archetype
+     *
+     * @param <C>
+     *      context type
+     */
+    public interface Body<C> {
+        int run(Archetype archetype, int from, int to, C context);
+    }
+
+    // rows per chunk
+    private int chunkSize;
+
+    // min entities to run in parallel
+    private int minCount;
+
+    // context factory
+    private Supplier<C> contextFactory;
+
+    // contexts, one per chunk
+    private List<C> contexts = new ArrayList<>();
+
+    // chunks of the last run
+    private int chunkCount = 0;
+
+    // worker pool
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    // chunk tasks, one per chunk, reused on the next run
+    private List<Chunk<C>> chunks = new ArrayList<>();
+
+    // chunk tasks of the current run
+    private List<ForkJoinTask<Integer>> tasks = new ArrayList<>();
+
+    // task forking the chunk tasks inside the pool, reused on the next run
+    private Chunks all = new Chunks(tasks);
+
+    /**
+     * constructor
+     *
+     * @param chunkSize
+     *      rows per chunk
+     * @param minCount
+     *      min entities to run in parallel
+     * @param contextFactory
+     *      creates a context per chunk
+     */
+    public ParallelFor(int chunkSize, int minCount, Supplier<C> contextFactory) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.minCount = minCount;
+        this.contextFactory = contextFactory;
+    }
+
+    /**
+     * run the body on all entities of a query
+     *
+     * @param query
+     *      query
+     * @param body
+     *      loop body
+     * @return
+     *      sum of the counts returned by the body
+     */
+    public int run(Query query, Body<C> body) {
+        chunkCount = 0;
+        int count = 0;
+        boolean parallel = query.size() >= minCount;
+        tasks.clear();
+
+        for (Archetype archetype : query.getArchetypes()) {
+            for (int from = 0; from < archetype.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, archetype.size());
+                C context = getContext(chunkCount++);
+
+                if (parallel) {
+                    tasks.add(getChunk(chunkCount - 1).set(body, archetype, from, to, context));
+                } else {
+                    count += body.run(archetype, from, to, context);
+                }
+            }
+        }
+
+        if (parallel && !tasks.isEmpty()) {
+            if (ForkJoinTask.inForkJoinPool()) {
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                all.reinitialize();
+                pool.invoke(all);
+            }
+            for (ForkJoinTask<Integer> task : tasks) {
+                count += task.join();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * get the number of chunks of the last run
+     *
+     * @return
+     *      chunks
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * get the context of a chunk
+     * contexts 0 .. getChunkCount()-1 belong to the last run, in chunk order
+     *
+     * @param chunk
+     *      chunk index
+     * @return
+     *      context
+     */
+    public C getContext(int chunk) {
+        while (contexts.size() <= chunk) {
+            contexts.add(contextFactory.get());
+        }
+        return contexts.get(chunk);
+    }
+
+    /**
+     * helper function to get the task of a chunk
+     *
+     * @param chunk
+     *      chunk index
+     * @return
+     *      task
+     */
+    private Chunk<C> getChunk(int chunk) {
+        while (chunks.size() <= chunk) {
+            chunks.add(new Chunk<>());
+        }
+        return chunks.get(chunk);
+    }
+
+    /**
+     * task processing one chunk
+     * reused on every run, set() prepares it for the next one
+     */
+    private static class Chunk<C> extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private transient Body<C> body;
+        private transient Archetype archetype;
+        private int from, to;
+        private transient C context;
+
+        /**
+         * prepare the task for a run
+         *
+         * @param body
+         *      loop body
+         * @param archetype
+         *      archetype
+         * @param from
+         *      first row
+         * @param to
+         *      last row (exclusive)
+         * @param context
+         *      context of the chunk
+         * @return
+         *      this
+         */
+        Chunk<C> set(Body<C> body, Archetype archetype, int from, int to, C context) {
+            reinitialize();
+            this.body = body;
+            this.archetype = archetype;
+            this.from = from;
+            this.to = to;
+            this.context = context;
+            return this;
+        }
+
+        @Override
+        protected Integer compute() {
+            return body.run(archetype, from, to, context);
+        }
+    }
+
+    /**
+     * task forking all chunks inside the pool
+     */
+    private static class Chunks extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private transient List<ForkJoinTask<Integer>> tasks;
+
+        Chunks(List<ForkJoinTask<Integer>> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected Integer compute() {
+            ForkJoinTask.invokeAll(tasks);
+            return 0;
+        }
+    }
+}
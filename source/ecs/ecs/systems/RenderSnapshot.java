@@ -0,0 +1,379 @@
+package ecs.ecs.systems;
+
+import ecs.ecs.components.PositionComponent;
+import ecs.ecs.components.ShapeComponent;
+import javafx.geometry.Point3D;
+import javafx.scene.Group;
+import javafx.scene.LightBase;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * render snapshot
+ *
+ * the simulation thread must not touch the scene graph,
+ * so systems write render commands into a snapshot instead:
+ * nodes to add or remove, node placements (previous and current tick) and rotations
+ * the snapshot is handed over to the fx thread (SnapshotExchange) and applied there
+ *
+ * scene changes, rotations and tasks are applied once,
+ * placements are interpolated on every frame until the next snapshot arrives
+ *
+ * scene changes are applied in batches: only the last change per node counts,
+ * nodes are added with one addAll per region (SceneRegions) and removed with one removeAll per parent
+ * placed nodes are moved to the region of their position (culling)
+ * lights are passed to the LightManager
+ */
+public class RenderSnapshot {
+
+    // scene changes in order: node and add (true) or remove (false)
+    private List<Node> sceneNodes = new ArrayList<>();
+    private List<Boolean> sceneAdds = new ArrayList<>();
+
+    // placements: node, previous and current position (x, y, z)
+    private Node[] nodes = new Node[64];
+    private double[] previous = new double[64 * 3];
+    private double[] current = new double[64 * 3];
+    private int placements = 0;
+
+    // rotations
+    private List<ShapeComponent> rotatedShapes = new ArrayList<>();
+    private List<Point3D> rotations = new ArrayList<>();
+
+    // other scene graph work, e.g. debug output
+    private List<Runnable> tasks = new ArrayList<>();
+
+    // camera focus (previous and current tick)
+    private Point3D focusPrevious, focus;
+
+    // time of the tick in nanoseconds
+    long time;
+
+    // scene changes, rotations and tasks have been applied
+    private boolean applied = false;
+
+    /**
+     * add a node to the scene
+     *
+     * @param node
+     *      node
+     */
+    public void add(Node node) {
+        sceneNodes.add(node);
+        sceneAdds.add(true);
+    }
+
+    /**
+     * remove a node from the scene
+     *
+     * @param node
+     *      node
+     */
+    public void remove(Node node) {
+        sceneNodes.add(node);
+        sceneAdds.add(false);
+    }
+
+    /**
+     * place a node
+     *
+     * @param node
+     *      node
+     * @param position
+     *      position
+     */
+    public void place(Node node, Point3D position) {
+        place(node, position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * place a node
+     *
+     * @param node
+     *      node
+     * @param x
+     *      x-position
+     * @param y
+     *      y-position
+     * @param z
+     *      z-position
+     */
+    public void place(Node node, double x, double y, double z) {
+        place(node, x, y, z, x, y, z);
+    }
+
+    /**
+     * place a node, interpolated between the previous and the current tick
+     *
+     * @param node
+     *      node
+     * @param position
+     *      position (previous and current)
+     */
+    public void place(Node node, PositionComponent position) {
+        place(node, position.getPreviousX(), position.getPreviousY(), position.getPreviousZ(),
+                position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * place a node, interpolated between two ticks
+     *
+     * @param node
+     *      node
+     * @param previousPosition
+     *      position of the previous tick
+     * @param currentPosition
+     *      position of the current tick
+     */
+    public void place(Node node, Point3D previousPosition, Point3D currentPosition) {
+        place(node, previousPosition.getX(), previousPosition.getY(), previousPosition.getZ(),
+                currentPosition.getX(), currentPosition.getY(), currentPosition.getZ());
+    }
+
+    /**
+     * place a node, interpolated between two ticks
+     *
+     * @param node
+     *      node
+     * @param previousX
+     *      x-position of the previous tick
+     * @param previousY
+     *      y-position of the previous tick
+     * @param previousZ
+     *      z-position of the previous tick
+     * @param x
+     *      x-position of the current tick
+     * @param y
+     *      y-position of the current tick
+     * @param z
+     *      z-position of the current tick
+     */
+    public void place(Node node, double previousX, double previousY, double previousZ, double x, double y, double z) {
+        if (placements == nodes.length) {
+            nodes = Arrays.copyOf(nodes, placements * 2);
+            previous = Arrays.copyOf(previous, placements * 6);
+            current = Arrays.copyOf(current, placements * 6);
+        }
+        int i = placements * 3;
+        nodes[placements++] = node;
+        previous[i] = previousX;
+        previous[i + 1] = previousY;
+        previous[i + 2] = previousZ;
+        current[i] = x;
+        current[i + 1] = y;
+        current[i + 2] = z;
+    }
+
+    /**
+     * rotate a shape
+     *
+     * @param shapeComponent
+     *      shape
+     * @param rotation
+     *      rotation
+     */
+    public void rotate(ShapeComponent shapeComponent, Point3D rotation) {
+        rotatedShapes.add(shapeComponent);
+        rotations.add(rotation);
+    }
+
+    /**
+     * run some work on the fx thread
+     *
+     * @param task
+     *      task
+     */
+    public void runLater(Runnable task) {
+        tasks.add(task);
+    }
+
+    /**
+     * set the camera focus
+     *
+     * @param previousPosition
+     *      position of the previous tick
+     * @param currentPosition
+     *      position of the current tick
+     */
+    public void setFocus(Point3D previousPosition, Point3D currentPosition) {
+        focusPrevious = previousPosition;
+        focus = currentPosition;
+    }
+
+    /**
+     * get the interpolated camera focus
+     *
+     * @param alpha
+     *      0 (previous tick) .. 1 (current tick)
+     * @return
+     *      focus or null
+     */
+    public Point3D getFocus(double alpha) {
+        if (focus == null) {
+            return null;
+        }
+        return focusPrevious.add(focus.subtract(focusPrevious).multiply(alpha));
+    }
+
+    /**
+     * get the interpolation factor for a frame
+     *
+     * @param now
+     *      frame time in nanoseconds
+     * @param tickNanos
+     *      length of a tick in nanoseconds
+     * @return
+     *      0 (previous tick) .. 1 (current tick)
+     */
+    public double getAlpha(long now, long tickNanos) {
+        return Math.min(1, Math.max(0, (double) (now - time) / tickNanos));
+    }
+
+    /**
+     * apply the snapshot to the scene graph
+     * has to run on the fx thread
+     *
+     * @param alpha
+     *      0 (previous tick) .. 1 (current tick)
+     */
+    public void apply(double alpha) {
+        // place nodes first, new nodes are added to the region of their position
+        for (int n = 0, i = 0; n < placements; n++, i += 3) {
+            Node node = nodes[n];
+            node.setTranslateX(previous[i] + (current[i] - previous[i]) * alpha);
+            node.setTranslateY(previous[i + 1] + (current[i + 1] - previous[i + 1]) * alpha);
+            node.setTranslateZ(previous[i + 2] + (current[i + 2] - previous[i + 2]) * alpha);
+        }
+
+        if (!applied) {
+            applySceneChanges();
+            // moved nodes follow their region (or light cell), so they are culled with it
+            SceneRegions sceneRegions = SceneRegions.getInstance();
+            LightManager lightManager = LightManager.getInstance();
+            for (int n = 0; n < placements; n++) {
+                if (nodes[n] instanceof LightBase) {
+                    lightManager.relocate((LightBase) nodes[n]);
+                } else {
+                    sceneRegions.relocate(nodes[n]);
+                }
+            }
+            for (int i = 0; i < rotatedShapes.size(); i++) {
+                rotatedShapes.get(i).rotate(rotations.get(i));
+            }
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            sceneNodes.clear();
+            sceneAdds.clear();
+            rotatedShapes.clear();
+            rotations.clear();
+            tasks.clear();
+            applied = true;
+        }
+    }
+
+    /**
+     * apply the scene changes in batches
+     */
+    private void applySceneChanges() {
+        if (sceneNodes.isEmpty()) {
+            return;
+        }
+
+        // last change per node wins, the order of the nodes is kept
+        LinkedHashMap<Node, Boolean> changes = new LinkedHashMap<>();
+        for (int i = 0; i < sceneNodes.size(); i++) {
+            changes.remove(sceneNodes.get(i));
+            changes.put(sceneNodes.get(i), sceneAdds.get(i));
+        }
+
+        // group by parent
+        Map<Parent, Set<Node>> removes = new HashMap<>();
+        Map<Group, List<Node>> adds = new LinkedHashMap<>();
+        SceneRegions sceneRegions = SceneRegions.getInstance();
+        LightManager lightManager = LightManager.getInstance();
+        for (Map.Entry<Node, Boolean> change : changes.entrySet()) {
+            Node node = change.getKey();
+            // lights are switched on and off by the light manager
+            if (node instanceof LightBase) {
+                if (change.getValue()) {
+                    lightManager.add((LightBase) node);
+                } else {
+                    lightManager.remove((LightBase) node);
+                }
+                continue;
+            }
+            Parent parent = node.getParent();
+            if (change.getValue()) {
+                if (parent == null) {
+                    adds.computeIfAbsent(sceneRegions.getRegion(node), region -> new ArrayList<>()).add(node);
+                }
+            } else if (parent instanceof Group) {
+                removes.computeIfAbsent(parent, group -> new HashSet<>()).add(node);
+            }
+        }
+
+        // one notification per parent
+        for (Map.Entry<Parent, Set<Node>> remove : removes.entrySet()) {
+            ((Group) remove.getKey()).getChildren().removeAll(remove.getValue());
+        }
+        for (Map.Entry<Group, List<Node>> add : adds.entrySet()) {
+            add.getKey().getChildren().addAll(add.getValue());
+        }
+    }
+
+    /**
+     * put the commands of an older, never applied snapshot in front of this one
+     * called by the producer when the consumer skipped a snapshot
+     *
+     * @param older
+     *      older snapshot
+     */
+    void prepend(RenderSnapshot older) {
+        sceneNodes.addAll(0, older.sceneNodes);
+        sceneAdds.addAll(0, older.sceneAdds);
+        rotatedShapes.addAll(0, older.rotatedShapes);
+        rotations.addAll(0, older.rotations);
+        tasks.addAll(0, older.tasks);
+
+        // later placements of the same node win
+        int count = older.placements + placements;
+        Node[] mergedNodes = new Node[Math.max(count, nodes.length)];
+        double[] mergedPrevious = new double[mergedNodes.length * 3];
+        double[] mergedCurrent = new double[mergedNodes.length * 3];
+        System.arraycopy(older.nodes, 0, mergedNodes, 0, older.placements);
+        System.arraycopy(nodes, 0, mergedNodes, older.placements, placements);
+        System.arraycopy(older.previous, 0, mergedPrevious, 0, older.placements * 3);
+        System.arraycopy(previous, 0, mergedPrevious, older.placements * 3, placements * 3);
+        System.arraycopy(older.current, 0, mergedCurrent, 0, older.placements * 3);
+        System.arraycopy(current, 0, mergedCurrent, older.placements * 3, placements * 3);
+        nodes = mergedNodes;
+        previous = mergedPrevious;
+        current = mergedCurrent;
+        placements = count;
+    }
+
+    /**
+     * reset the snapshot for reuse
+     */
+    void clear() {
+        sceneNodes.clear();
+        sceneAdds.clear();
+        Arrays.fill(nodes, 0, placements, null);
+        placements = 0;
+        rotatedShapes.clear();
+        rotations.clear();
+        tasks.clear();
+        focusPrevious = null;
+        focus = null;
+        applied = false;
+    }
+}
@@ -4,27 +4,45 @@ import ecs.ecs.components.Component;
 import ecs.ecs.components.LightComponent;
 import ecs.ecs.components.RenderComponent;
 import ecs.ecs.components.ShapeComponent;
+import ecs.ecs.entities.ChangeLog;
 import ecs.ecs.entities.Entity;
 import ecs.ecs.entities.EntityManager;
 import ecs.ecs.entities.State;
-import ecs.Game;
-import javafx.scene.PointLight;
-import javafx.scene.layout.Pane;
-import javafx.scene.shape.Box;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import javafx.scene.Node;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * renders all entities
  * or removes them if necessary
- * operate on EntityManager.buffer
+ * operates on the change logs of render, shape and light components
  *
  * affected components: render, shape, light
  */
 public class RenderSystem implements ECSystem {
-    // root
-    private Pane root = Game.root;
+    // render commands, the scene graph is changed on the fx thread
+    private SnapshotExchange snapshotExchange = SnapshotExchange.getInstance();
+
+    // change logs of render, shape and light components
+    private ChangeLog.Reader[] readers = {
+            EntityManager.getChangeLog(RenderComponent.class).newReader(),
+            EntityManager.getChangeLog(ShapeComponent.class).newReader(),
+            EntityManager.getChangeLog(LightComponent.class).newReader()
+    };
+
+    // entities with added components, reused
+    private Set<Entity> touched = new LinkedHashSet<>();
+
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(RenderComponent.class, ShapeComponent.class, LightComponent.class);
+    }
+
+    // writes render commands
+    @Override
+    public boolean isThreadBound() {
+        return true;
+    }
 
     @Override
     public void run(boolean debug) {
@@ -37,82 +55,71 @@ public class RenderSystem implements ECSystem {
         // this lacks possibilities to add or remove entities (or components) during runtime
 //        HashMap<UUID, Component> components = EntityManager.components.get(RenderComponent.class);
 
-        // this new approach is using a separate buffer to indicate changes rather than static states
-        // changes are indicated by flag and stored in the buffer
-        HashMap<UUID, Entity> entities = EntityManager.entitiesUpdateBuffer;
-
-        // check if there are any entities in the update-pipeline
-        // rendering is only needed once when entity is created
-        // removing an entity from scene will also be indicated on the update-channel
-
-        // DEPRECATED (see above)
-        // check if we there are any renderComponents
-//        if (components == null) {
-
-        // new approach
-        if (entities == null) {
-            if(debug) System.out.println("entities to render: 0");
-        } else {
-//            if(debug) System.out.println("entities to render: " + entities.size());
-
-            // traverse all renderComponents
-//            for(Map.Entry<UUID, ? extends Component> entry : components.entrySet()) {
-            for(Map.Entry<UUID, Entity> entry : entities.entrySet()) {
-                UUID uuid = entry.getKey();
-//                Component component = entry.getValue();
-                Entity entity = entry.getValue();
-                State entityState = entity.getState();
-//                System.out.println("entity state: "+entityState);
-
-                // check if component is enabled
-//                if (entity.isEnabled()) {
-                if (entity.hasComponent(RenderComponent.class)) {
+        // this new approach reads the change logs of render, shape and light components
+        // rendering is only needed once when a component is added
+        // removing an entity from scene is logged as removed components
+        RenderSnapshot snapshot = snapshotExchange.getBack();
+        touched.clear();
 
-//                    Entity entity = EntityManager.getEntity(uuid);
-
-                    // get render component flag
-                    State renderComponentState = entity.getComponent(RenderComponent.class).getState();
-//                    System.out.println("render state: "+renderComponentState);
-
-                    // update shape
-                    if (entity.hasComponent(ShapeComponent.class)) {
-                        count++;
-                        Component component = entity.getComponent(ShapeComponent.class);
-                        State componentState = component.getState();
-//                        System.out.println("component state: "+componentState);
-                        Box shape = (Box) component.getValue();
-                        // remove shape from scene, when either the renderComponent or the shapeComponent is flagged to delete
-                        if (entityState == State.DELETE || renderComponentState == State.DELETE || component.getState() == State.DELETE) {
-                            root.getChildren().remove(shape);
-                        }
-                        // add shape to scene, when either the renderComponent or the shapeComponent is flagged to update
-                        else if (renderComponentState == State.UPDATE || component.getState() == State.UPDATE) {
-                            root.getChildren().add(shape);
-                        }
-                    }
-
-                    // update light
-                    if (entity.hasComponent(LightComponent.class)) {
-                        count++;
-                        Component component = entity.getComponent(LightComponent.class);
-                        State componentState = component.getState();
-//                        System.out.println("component state: "+componentState);
-                        PointLight light = (PointLight) component.getValue();
-                        // remove light from scene, when either the renderComponent or the lightComponent is flagged to delete
-                        if (entityState == State.DELETE || renderComponentState == State.DELETE || component.getState() == State.DELETE) {
-                            root.getChildren().remove(light);
-                        }
-                        // add light to scene, when either the renderComponent or the lightComponent is flagged to update
-                        else if (renderComponentState == State.UPDATE || component.getState() == State.UPDATE) {
-                            root.getChildren().add(light);
-                        }
+        // remove nodes of removed components
+        // remember entities with added components
+        for (ChangeLog.Reader reader : readers) {
+            while (reader.next()) {
+                Component component = reader.getComponent();
+                if (reader.getKind() == ChangeLog.REMOVED) {
+                    count++;
+                    if (component instanceof RenderComponent) {
+                        // unrender the entity, its shape and light may still be alive
+                        ShapeComponent shapeComponent = reader.getEntity().tryGetComponent(ShapeComponent.class);
+                        LightComponent lightComponent = reader.getEntity().tryGetComponent(LightComponent.class);
+                        if (shapeComponent != null) snapshot.remove(shapeComponent.getValue());
+                        if (lightComponent != null) snapshot.remove(lightComponent.getValue());
+                    } else {
+                        snapshot.remove(node(component));
                     }
+                } else {
+                    touched.add(reader.getEntity());
                 }
             }
         }
+
+        // add shapes and lights of rendered entities
+        // the current state counts, so components added and removed since the last run are skipped
+        for (Entity entity : touched) {
+            RenderComponent renderComponent = entity.tryGetComponent(RenderComponent.class);
+            if (entity.getState() == State.DELETE || renderComponent == null || renderComponent.getState() == State.DELETE) {
+                continue;
+            }
+            ShapeComponent shapeComponent = entity.tryGetComponent(ShapeComponent.class);
+            if (shapeComponent != null && shapeComponent.getState() != State.DELETE) {
+                count++;
+                snapshot.add(shapeComponent.getValue());
+            }
+            LightComponent lightComponent = entity.tryGetComponent(LightComponent.class);
+            if (lightComponent != null && lightComponent.getState() != State.DELETE) {
+                count++;
+                snapshot.add(lightComponent.getValue());
+            }
+        }
+
         if(debug) {
             System.out.println("rendered components: " + count);
             System.out.println("RenderSystem <end>");
         }
     }
+
+    /**
+     * helper function to get the node of a shape or light
+     *
+     * @param component
+     *      shape or light component
+     * @return
+     *      node
+     */
+    private static Node node(Component component) {
+        if (component instanceof ShapeComponent) {
+            return ((ShapeComponent) component).getValue();
+        }
+        return ((LightComponent) component).getValue();
+    }
 }
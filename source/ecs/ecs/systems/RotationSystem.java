@@ -1,49 +1,71 @@
 package ecs.ecs.systems;
 
 import ecs.ecs.components.*;
-import ecs.ecs.entities.Entity;
-import ecs.ecs.entities.EntityManager;
+import ecs.ecs.entities.Archetype;
+import ecs.ecs.entities.Query;
 import javafx.geometry.Point3D;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.List;
+import java.util.Set;
 
 /**
  * performs all rotations on entities
  * rotation is a visual experience,
  * so we only process shapes, not colliders or anything else
+ * shapes are only rotated when the rotation has changed
  *
  * affected components: rotation, shape
  */
 public class RotationSystem implements ECSystem {
 
+    // all entities with rotation & shape
+    private Query query = new Query(RotationComponent.class, ShapeComponent.class);
+
+    // render commands
+    private SnapshotExchange snapshotExchange = SnapshotExchange.getInstance();
+
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(RotationComponent.class, ShapeComponent.class);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> writes() {
+        return ECSystem.components(RotationComponent.class, ShapeComponent.class);
+    }
+
+    // writes render commands
+    @Override
+    public boolean isThreadBound() {
+        return true;
+    }
+
     @Override
     public void run(boolean debug) {
         if(debug) System.err.println("RotationSystem <start>");
         int count = 0;
-        HashMap<UUID, Component> components = EntityManager.components.get(RotationComponent.class);
+        List<Archetype> archetypes = query.getArchetypes();
 
         // check if we there are any rotationComponents
-        if (components == null) {
+        if (archetypes.isEmpty()) {
             if(debug) System.out.println("entities to rotate: 0");
         } else {
-            if(debug) System.out.println("entities to rotate: " + components.size());
-
-            // traverse all rotationComponents
-            for(Map.Entry<UUID, ? extends Component> entry : components.entrySet()) {
-                UUID uuid = entry.getKey();
-                Component component = entry.getValue();
+            // traverse all archetypes with rotation & shape
+            for (Archetype archetype : archetypes) {
+                if(debug) System.out.println("entities to rotate: " + archetype.size());
+                Component[] rotationComponents = archetype.getColumn(RotationComponent.class);
+                Component[] shapeComponents = archetype.getColumn(ShapeComponent.class);
 
-                // check if component is enabled
-                if (component.isEnabled()) {
+                for (int row = 0; row < archetype.size(); row++) {
+                    RotationComponent rotationComponent = (RotationComponent) rotationComponents[row];
 
-                    Entity entity = EntityManager.getEntity(uuid);
-                    Point3D rotation = (Point3D) component.getValue();
+                    // check if component is enabled and has changed
+                    if (rotationComponent.isEnabled() && rotationComponent.isChanged()) {
+                        Point3D rotation = rotationComponent.getValue();
 
-                    // update shape rotation
-                    if (entity.hasComponent(ShapeComponent.class)) {
+                        // update shape rotation
                         count++;
-                        ((ShapeComponent) entity.getComponent(ShapeComponent.class)).rotate(rotation);
+                        snapshotExchange.getBack().rotate((ShapeComponent) shapeComponents[row], rotation);
+                        rotationComponent.clearChanged();
                     }
                 }
             }
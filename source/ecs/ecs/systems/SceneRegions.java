@@ -0,0 +1,205 @@
+package ecs.ecs.systems;
+
+import ecs.Game;
+import ecs.collision.GridKey;
+import ecs.settings.Settings;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * scene regions
+ *
+ * nodes are not added to Game.root directly but to a group per square region of the level
+ * (Settings.getRegionSize() pixels), chosen by the position of the node when it is added
+ * so every parent keeps a small list of children and removals do not scan the whole scene
+ *
+ * the regions are also the spatial index for culling:
+ * only regions inside the view rectangle of the camera (plus a margin) are attached to Game.root,
+ * when the camera moves to another region the regions entering and leaving the view are (de-)attached
+ *
+ * fx thread only
+ *
+ * singleton
+ */
+public class SceneRegions {
+
+    private static SceneRegions sceneRegions = new SceneRegions();
+
+    // region size in pixels
+    private double regionSize = Settings.getRegionSize();
+
+    // region groups by region key
+    private HashMap<Long, Group> regions = new HashMap<>();
+
+    // attached regions (columns and rows, inclusive), no culling until the first view is set
+    private boolean culling = false;
+    private long minColumn, maxColumn, minRow, maxRow;
+
+    private SceneRegions() {}
+
+    /* Static 'instance' method */
+    public static SceneRegions getInstance( ) {
+        return sceneRegions;
+    }
+
+    /**
+     * get the group of the region a node is placed in
+     * regions are created on demand and added to Game.root, if they are in view
+     *
+     * @param node
+     *      node
+     * @return
+     *      region group
+     */
+    public Group getRegion(Node node) {
+        long column = column(node.getTranslateX());
+        long row = row(node.getTranslateY());
+        long key = GridKey.key(column, row);
+        Group region = regions.get(key);
+        if (region == null) {
+            region = new Group();
+            region.setUserData(key);
+            regions.put(key, region);
+            if (isInView(column, row)) {
+                Game.root.getChildren().add(region);
+            }
+        }
+        return region;
+    }
+
+    /**
+     * move a node to the region of its current position
+     * called for placed nodes, so moving nodes are culled with the region they are in
+     *
+     * @param node
+     *      node
+     */
+    public void relocate(Node node) {
+        Parent parent = node.getParent();
+        if (!(parent instanceof Group) || !(parent.getUserData() instanceof Long)) {
+            return;
+        }
+        long column = column(node.getTranslateX());
+        long row = row(node.getTranslateY());
+        if ((Long) parent.getUserData() == GridKey.key(column, row)) {
+            return;
+        }
+        ((Group) parent).getChildren().remove(node);
+        getRegion(node).getChildren().add(node);
+    }
+
+    /**
+     * set the view rectangle of the camera
+     * regions entering the rectangle are attached, regions leaving it are detached
+     * nothing is done while the camera stays in the same regions
+     *
+     * @param x
+     *      x-position of the view center
+     * @param y
+     *      y-position of the view center
+     * @param halfWidth
+     *      half width of the view incl. margin
+     * @param halfHeight
+     *      half height of the view incl. margin
+     */
+    public void setView(double x, double y, double halfWidth, double halfHeight) {
+        long newMinColumn = column(x - halfWidth);
+        long newMaxColumn = column(x + halfWidth);
+        long newMinRow = row(y - halfHeight);
+        long newMaxRow = row(y + halfHeight);
+
+        if (!culling) {
+            // first view: detach everything outside
+            culling = true;
+            minColumn = newMinColumn;
+            maxColumn = newMaxColumn;
+            minRow = newMinRow;
+            maxRow = newMaxRow;
+            for (Group region : regions.values()) {
+                long key = (Long) region.getUserData();
+                if (!isInView(GridKey.column(key), GridKey.row(key))) {
+                    Game.root.getChildren().remove(region);
+                }
+            }
+            return;
+        }
+
+        if (newMinColumn == minColumn && newMaxColumn == maxColumn && newMinRow == minRow && newMaxRow == maxRow) {
+            return;
+        }
+
+        // detach regions leaving the view
+        for (long column = minColumn; column <= maxColumn; column++) {
+            for (long row = minRow; row <= maxRow; row++) {
+                if (column < newMinColumn || column > newMaxColumn || row < newMinRow || row > newMaxRow) {
+                    Group region = regions.get(GridKey.key(column, row));
+                    if (region != null) {
+                        Game.root.getChildren().remove(region);
+                    }
+                }
+            }
+        }
+
+        // attach regions entering the view
+        for (long column = newMinColumn; column <= newMaxColumn; column++) {
+            for (long row = newMinRow; row <= newMaxRow; row++) {
+                if (!isInView(column, row)) {
+                    Group region = regions.get(GridKey.key(column, row));
+                    if (region != null) {
+                        Game.root.getChildren().add(region);
+                    }
+                }
+            }
+        }
+
+        minColumn = newMinColumn;
+        maxColumn = newMaxColumn;
+        minRow = newMinRow;
+        maxRow = newMaxRow;
+    }
+
+    /**
+     * get all regions
+     *
+     * @return
+     *      region groups (do not modify)
+     */
+    public Collection<Group> getRegions() {
+        return regions.values();
+    }
+
+    /**
+     * get the size of a region
+     *
+     * @return
+     *      pixels
+     */
+    public double getRegionSize() {
+        return regionSize;
+    }
+
+    /**
+     * helper function to check if a region is attached
+     *
+     * @param column
+     *      region column
+     * @param row
+     *      region row
+     * @return
+     *      boolean
+     */
+    private boolean isInView(long column, long row) {
+        return !culling || (column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow);
+    }
+
+    private long column(double x) {
+        return GridKey.cell(x, regionSize);
+    }
+
+    private long row(double y) {
+        return GridKey.cell(y, regionSize);
+    }
+}
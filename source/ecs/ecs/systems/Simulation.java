@@ -0,0 +1,130 @@
+package ecs.ecs.systems;
+
+import ecs.Game;
+import ecs.ecs.components.PositionComponent;
+import ecs.settings.Settings;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * simulation thread
+ *
+ * runs all systems in fixed ticks on its own thread, so a slow tick does not drop rendered frames
+ * after the ticks of a loop the render snapshot is published to the fx thread (SnapshotExchange)
+ *
+ * entities and components belong to the simulation thread:
+ * changes from other threads (e.g. timelines, ui) have to be passed in by runLater()
+ */
+public class Simulation implements Runnable {
+
+    // system-manager
+    private SystemManager systemManager;
+
+    // fixed timestep
+    private FixedTimestep timestep = new FixedTimestep(Settings.getTickRate(), Settings.getMaxCatchUpTicks());
+
+    // snapshot hand-off
+    private SnapshotExchange snapshotExchange = SnapshotExchange.getInstance();
+
+    // work passed in by other threads
+    private Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    // thread
+    private Thread thread;
+    private volatile boolean running = false;
+
+    /**
+     * constructor
+     * creates and inits all systems on the calling thread, the first snapshot is published
+     */
+    public Simulation() {
+        systemManager = new SystemManager();
+        systemManager.init();
+        publish();
+    }
+
+    /**
+     * start the simulation thread
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * stop the simulation thread and wait for it
+     */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * run some work on the simulation thread, before the next tick
+     *
+     * @param task
+     *      task
+     */
+    public void runLater(Runnable task) {
+        pending.add(task);
+    }
+
+    /**
+     * get the length of a tick
+     *
+     * @return
+     *      nanoseconds
+     */
+    public long getTickNanos() {
+        return timestep.getTickNanos();
+    }
+
+    /**
+     * simulation loop
+     */
+    @Override
+    public void run() {
+        while (running) {
+            int ticks = timestep.advance(System.nanoTime());
+            for (int i = 0; i < ticks; i++) {
+                Runnable task;
+                while ((task = pending.poll()) != null) {
+                    task.run();
+                }
+                systemManager.update();
+            }
+            if (ticks > 0) {
+                publish();
+            }
+
+            // wait for the next tick
+            LockSupport.parkNanos(timestep.getNanosToNextTick());
+        }
+    }
+
+    /**
+     * publish the render snapshot of the current tick
+     */
+    private void publish() {
+        RenderSnapshot snapshot = snapshotExchange.getBack();
+
+        // camera follows the player
+        if (Game.player != null) {
+            PositionComponent positionComponent = Game.player.tryGetComponent(PositionComponent.class);
+            if (positionComponent != null) {
+                snapshot.setFocus(positionComponent.getPrevious(), positionComponent.getValue());
+            }
+        }
+        snapshotExchange.publish(System.nanoTime());
+    }
+}
@@ -0,0 +1,93 @@
+package ecs.ecs.systems;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * lock-free hand-off of render snapshots from the simulation thread to the fx thread
+ *
+ * triple buffering: the simulation writes the back snapshot, the fx thread applies the front snapshot,
+ * the latest finished snapshot waits in between
+ * buffers are only swapped by atomic exchanges, neither side ever blocks
+ *
+ * if the fx thread skips a snapshot, its commands are merged into the next one,
+ * so no scene change gets lost
+ *
+ * singleton
+ */
+public class SnapshotExchange {
+
+    private static SnapshotExchange snapshotExchange = new SnapshotExchange();
+
+    // written by the simulation thread only
+    private RenderSnapshot back = new RenderSnapshot();
+
+    // latest finished snapshot, null if consumed
+    private final AtomicReference<RenderSnapshot> ready = new AtomicReference<>();
+
+    // unused snapshot, returned by the fx thread
+    private final AtomicReference<RenderSnapshot> spare = new AtomicReference<>(new RenderSnapshot());
+
+    // applied by the fx thread only
+    private RenderSnapshot front = new RenderSnapshot();
+
+    private SnapshotExchange() {}
+
+    /* Static 'instance' method */
+    public static SnapshotExchange getInstance( ) {
+        return snapshotExchange;
+    }
+
+    /**
+     * get the snapshot to write render commands into
+     * simulation thread only
+     *
+     * @return
+     *      back snapshot
+     */
+    public RenderSnapshot getBack() {
+        return back;
+    }
+
+    /**
+     * publish the back snapshot
+     * simulation thread only
+     *
+     * @param time
+     *      time of the tick in nanoseconds
+     */
+    public void publish(long time) {
+        back.time = time;
+
+        // take back a snapshot the fx thread did not apply yet and merge it
+        RenderSnapshot skipped = ready.getAndSet(null);
+        if (skipped != null) {
+            back.prepend(skipped);
+        }
+        ready.set(back);
+
+        // next back snapshot
+        RenderSnapshot next = skipped != null ? skipped : spare.getAndSet(null);
+        if (next == null) {
+            // the fx thread is just swapping, do not wait
+            next = new RenderSnapshot();
+        }
+        next.clear();
+        back = next;
+    }
+
+    /**
+     * get the latest snapshot
+     * fx thread only
+     *
+     * @return
+     *      latest snapshot (the previous one if nothing new was published)
+     */
+    public RenderSnapshot acquire() {
+        RenderSnapshot latest = ready.getAndSet(null);
+        if (latest != null) {
+            spare.set(front);
+            front = latest;
+        }
+        return front;
+    }
+}
@@ -0,0 +1,269 @@
+package ecs.ecs.systems;
+
+import ecs.collision.GridKey;
+import ecs.ecs.components.Component;
+import ecs.ecs.components.PositionComponent;
+import ecs.ecs.components.RenderComponent;
+import ecs.ecs.components.StaticShapeComponent;
+import ecs.ecs.entities.ChangeLog;
+import ecs.ecs.entities.Entity;
+import ecs.ecs.entities.EntityManager;
+import ecs.ecs.entities.State;
+import ecs.settings.Settings;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * merges static shapes into chunk meshes
+ *
+ * the level is divided into square chunks of Settings.getChunkSize() pixels
+ * all static shapes of a chunk sharing a material are merged into one TriangleMesh (one MeshView),
+ * so thousands of level blocks cost a few nodes instead of one node each
+ *
+ * a chunk mesh is only rebuilt when a static shape of the chunk is added or removed
+ * static shapes are not moved by systems, moving one has to be logged (Entity.updateComponent())
+ * operates on the change logs of static shape, position and render components
+ *
+ * affected components: static shape, position, render
+ */
+public class StaticMeshSystem implements ECSystem {
+
+    // box mesh: corners, texture coordinates and faces (point, texcoord) of a unit box centered on 0
+    private static final float[] CORNERS = {
+            -1, -1, -1,   1, -1, -1,   1,  1, -1,  -1,  1, -1,
+            -1, -1,  1,   1, -1,  1,   1,  1,  1,  -1,  1,  1
+    };
+    private static final float[] TEX_COORDS = {0, 0, 1, 0, 1, 1, 0, 1};
+    private static final int[] FACES = {
+            0, 0, 2, 2, 1, 1,   2, 2, 0, 0, 3, 3,
+            1, 0, 6, 2, 5, 1,   6, 2, 1, 0, 2, 3,
+            5, 0, 7, 2, 4, 1,   7, 2, 5, 0, 6, 3,
+            4, 0, 3, 2, 0, 1,   3, 2, 4, 0, 7, 3,
+            3, 0, 6, 2, 2, 1,   6, 2, 3, 0, 7, 3,
+            4, 0, 1, 2, 5, 1,   1, 2, 4, 0, 0, 3
+    };
+    // one smoothing group per side, so edges stay sharp
+    private static final int[] SMOOTHING_GROUPS = {1, 1, 2, 2, 4, 4, 8, 8, 16, 16, 32, 32};
+
+    // chunk size in pixels
+    private double chunkSize = Settings.getChunkSize();
+
+    // chunk meshes by chunk key and material
+    private HashMap<Long, HashMap<PhongMaterial, ChunkMesh>> chunks = new HashMap<>();
+
+    // chunk meshes to rebuild
+    private Set<ChunkMesh> dirty = new LinkedHashSet<>();
+
+    // render commands
+    private SnapshotExchange snapshotExchange = SnapshotExchange.getInstance();
+
+    // change logs of static shape, position and render components
+    private ChangeLog.Reader[] readers = {
+            EntityManager.getChangeLog(StaticShapeComponent.class).newReader(),
+            EntityManager.getChangeLog(PositionComponent.class).newReader(),
+            EntityManager.getChangeLog(RenderComponent.class).newReader()
+    };
+
+    // entities with added or changed components, reused
+    private Set<Entity> touched = new LinkedHashSet<>();
+
+    @Override
+    public Set<Class<? extends Component>> reads() {
+        return ECSystem.components(StaticShapeComponent.class, PositionComponent.class, RenderComponent.class);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> writes() {
+        return ECSystem.components(StaticShapeComponent.class);
+    }
+
+    // writes render commands
+    @Override
+    public boolean isThreadBound() {
+        return true;
+    }
+
+    @Override
+    public void run(boolean debug) {
+        if(debug) System.err.println("StaticMeshSystem <start>");
+        int count = 0;
+
+        // remove shapes from their chunk when the shape, the render or the position component was removed
+        // remember entities with added or changed components
+        touched.clear();
+        for (ChangeLog.Reader reader : readers) {
+            while (reader.next()) {
+                if (reader.getKind() == ChangeLog.REMOVED) {
+                    StaticShapeComponent shapeComponent = reader.getComponent() instanceof StaticShapeComponent ?
+                            (StaticShapeComponent) reader.getComponent() :
+                            reader.getEntity().tryGetComponent(StaticShapeComponent.class);
+                    if (shapeComponent != null && remove(shapeComponent)) count++;
+                } else {
+                    touched.add(reader.getEntity());
+                }
+            }
+        }
+
+        // (re-)add shapes, when they are new or have been moved
+        // the current state counts, so components added and removed since the last run are skipped
+        for (Entity entity : touched) {
+            StaticShapeComponent shapeComponent = entity.tryGetComponent(StaticShapeComponent.class);
+            RenderComponent renderComponent = entity.tryGetComponent(RenderComponent.class);
+            PositionComponent positionComponent = entity.tryGetComponent(PositionComponent.class);
+            if (entity.getState() == State.DELETE || shapeComponent == null || shapeComponent.getState() == State.DELETE ||
+                renderComponent == null || renderComponent.getState() == State.DELETE || positionComponent == null) {
+                continue;
+            }
+            remove(shapeComponent);
+            add(shapeComponent, positionComponent);
+            count++;
+        }
+
+        // rebuild changed chunks
+        if (!dirty.isEmpty()) {
+            RenderSnapshot snapshot = snapshotExchange.getBack();
+            for (ChunkMesh chunkMesh : dirty) {
+                rebuild(chunkMesh, snapshot);
+            }
+            if(debug) System.out.println("chunk meshes rebuilt: " + dirty.size());
+            dirty.clear();
+        }
+
+        if(debug) {
+            System.out.println("static shapes updated: " + count);
+            System.out.println("StaticMeshSystem <end>");
+        }
+    }
+
+    /**
+     * add a shape to the chunk of its position
+     *
+     * @param shapeComponent
+     *      static shape
+     * @param position
+     *      position
+     */
+    private void add(StaticShapeComponent shapeComponent, PositionComponent position) {
+        long column = GridKey.cell(position.getX(), chunkSize);
+        long row = GridKey.cell(position.getY(), chunkSize);
+        long key = GridKey.key(column, row);
+
+        PhongMaterial material = shapeComponent.getValue();
+        ChunkMesh chunkMesh = chunks.computeIfAbsent(key, k -> new HashMap<>())
+                .computeIfAbsent(material, m -> new ChunkMesh(column * chunkSize, row * chunkSize, material));
+        chunkMesh.shapes.add(shapeComponent);
+        shapeComponent.chunk = key;
+        shapeComponent.chunkMaterial = material;
+        dirty.add(chunkMesh);
+    }
+
+    /**
+     * remove a shape from its chunk
+     *
+     * @param shapeComponent
+     *      static shape
+     * @return
+     *      boolean, false if the shape was not merged
+     */
+    private boolean remove(StaticShapeComponent shapeComponent) {
+        if (shapeComponent.chunkMaterial == null) {
+            return false;
+        }
+        ChunkMesh chunkMesh = chunks.get(shapeComponent.chunk).get(shapeComponent.chunkMaterial);
+        chunkMesh.shapes.remove(shapeComponent);
+        shapeComponent.chunkMaterial = null;
+        dirty.add(chunkMesh);
+        return true;
+    }
+
+    /**
+     * rebuild the mesh of a chunk and replace its node
+     *
+     * @param chunkMesh
+     *      chunk mesh
+     * @param snapshot
+     *      render snapshot
+     */
+    private void rebuild(ChunkMesh chunkMesh, RenderSnapshot snapshot) {
+        if (chunkMesh.view != null) {
+            snapshot.remove(chunkMesh.view);
+            chunkMesh.view = null;
+        }
+        if (chunkMesh.shapes.isEmpty()) {
+            return;
+        }
+
+        int boxes = chunkMesh.shapes.size();
+        float[] points = new float[boxes * CORNERS.length];
+        int[] faces = new int[boxes * FACES.length];
+        int[] smoothingGroups = new int[boxes * SMOOTHING_GROUPS.length];
+
+        int box = 0;
+        for (StaticShapeComponent shapeComponent : chunkMesh.shapes) {
+            // box center relative to the chunk origin
+            PositionComponent position = shapeComponent.getEntity().tryGetComponent(PositionComponent.class);
+            float x = (float) (position.getX() - chunkMesh.x);
+            float y = (float) (position.getY() - chunkMesh.y);
+            float z = (float) position.getZ();
+            float halfWidth = (float) shapeComponent.width / 2;
+            float halfHeight = (float) shapeComponent.height / 2;
+            float halfDepth = (float) shapeComponent.depth / 2;
+
+            int p = box * CORNERS.length;
+            for (int i = 0; i < CORNERS.length; i += 3) {
+                points[p + i] = x + CORNERS[i] * halfWidth;
+                points[p + i + 1] = y + CORNERS[i + 1] * halfHeight;
+                points[p + i + 2] = z + CORNERS[i + 2] * halfDepth;
+            }
+
+            // faces: point indices are shifted by the corners of the previous boxes
+            int f = box * FACES.length;
+            int offset = box * (CORNERS.length / 3);
+            for (int i = 0; i < FACES.length; i += 2) {
+                faces[f + i] = FACES[i] + offset;
+                faces[f + i + 1] = FACES[i + 1];
+            }
+            System.arraycopy(SMOOTHING_GROUPS, 0, smoothingGroups, box * SMOOTHING_GROUPS.length, SMOOTHING_GROUPS.length);
+            box++;
+        }
+
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getPoints().setAll(points);
+        mesh.getTexCoords().setAll(TEX_COORDS);
+        mesh.getFaces().setAll(faces);
+        mesh.getFaceSmoothingGroups().setAll(smoothingGroups);
+
+        MeshView view = new MeshView(mesh);
+        view.setMaterial(chunkMesh.material);
+        chunkMesh.view = view;
+        snapshot.place(view, chunkMesh.x, chunkMesh.y, 0);
+        snapshot.add(view);
+    }
+
+    /**
+     * merged mesh of all static shapes of a chunk with the same material
+     */
+    private static class ChunkMesh {
+        // chunk origin
+        final double x, y;
+
+        // material
+        final PhongMaterial material;
+
+        // merged shapes
+        final Set<StaticShapeComponent> shapes = new LinkedHashSet<>();
+
+        // current node, null if not built
+        MeshView view;
+
+        ChunkMesh(double x, double y, PhongMaterial material) {
+            this.x = x;
+            this.y = y;
+            this.material = material;
+        }
+    }
+}
@@ -2,12 +2,17 @@ package ecs.ecs.systems;
 
 import ecs.ecs.entities.EntityManager;
 import ecs.settings.Settings;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * systemmanager
  *
  * stores and runs all systems
  * define and order your systems here
+ *
+ * systems are run by schedulers: systems without conflicting component access run concurrently,
+ * conflicting systems keep the order defined here
+ * init() and update() have to be called from the simulation thread (see Simulation)
  */
 public class SystemManager {
     // entity-manager
@@ -21,6 +26,12 @@ public class SystemManager {
     MovementSystem movement = new MovementSystem();
     EventCommandSystem eventCommandSystem = EventCommandSystem.getInstance();
     GarbageCollectorSystem garbage = new GarbageCollectorSystem();
+    InterpolationSystem interpolation = new InterpolationSystem();
+    StaticMeshSystem staticMesh = new StaticMeshSystem();
+
+    // schedulers
+    SystemScheduler initScheduler = new SystemScheduler(ForkJoinPool.commonPool());
+    SystemScheduler updateScheduler = new SystemScheduler(ForkJoinPool.commonPool());
 
     // settings
     Settings settings = Settings.getInstance();
@@ -34,6 +45,21 @@ public class SystemManager {
      */
     public SystemManager() {
 
+        // order your systems here
+        initScheduler.add(movement);
+        initScheduler.add(rotation);
+        initScheduler.add(render);
+        initScheduler.add(staticMesh);
+        initScheduler.add(garbage);
+
+        updateScheduler.add(render);
+        updateScheduler.add(staticMesh);
+        updateScheduler.add(gravity);
+        updateScheduler.add(keyInput);
+        updateScheduler.add(movement);
+        updateScheduler.add(interpolation);
+        updateScheduler.add(garbage);
+        updateScheduler.add(eventCommandSystem);
     }
 
     /**
@@ -42,15 +68,10 @@ public class SystemManager {
     public void init() {
         if(debug_init) {
             System.err.println("SystemManager@init <start>");
-            System.out.println("entities: " + entityManager.entities.size());
-            System.out.println("buffered: " + entityManager.entitiesUpdateBuffer.size());
+            System.out.println("entities: " + entityManager.getEntityCount());
         }
 
-        // order your systems here
-        movement.run(debug_init);
-        rotation.run(debug_init);
-        render.run(debug_init);
-        garbage.run(debug_init);
+        initScheduler.run(debug_init);
 
         if(debug_init) System.out.println("SystemManager@init <end>");
     }
@@ -60,22 +81,15 @@ public class SystemManager {
      */
     public void update() {
         if(debug_update) {
-            System.err.println("SystemManager@init <start>");
-            System.out.println("entities: " + entityManager.entities.size());
+            System.err.println("SystemManager@update <start>");
+            System.out.println("entities: " + entityManager.getEntityCount());
         }
 
-        if (debug_update && entityManager.entitiesUpdateBuffer.size() > 0) {
-            System.out.println("SystemManager: entities to update: " + entityManager.entitiesUpdateBuffer.size());
-        }
+        // changes are stamped with the tick
+        EntityManager.nextTick();
 
-        // order your systems here
-        render.run(debug_update);
-        gravity.run(debug_update);
-        keyInput.run(debug_update);
-        movement.run(debug_update);
-        garbage.run(debug_update);
-        eventCommandSystem.run(debug_update);
-
-        if(debug_update) System.out.println("SystemManager@init <end>");
+        updateScheduler.run(debug_update);
+
+        if(debug_update) System.out.println("SystemManager@update <end>");
     }
 }
@@ -0,0 +1,172 @@
+package ecs.ecs.systems;
+
+import ecs.ecs.components.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * system scheduler
+ *
+ * runs systems in waves, systems of the same wave run concurrently
+ * the waves are built from the declared read/write sets of the systems (dependency graph):
+ * two systems conflict if one writes a component class the other one reads or writes,
+ * or if one of them is exclusive
+ * conflicting systems keep their registration order, every system runs in the wave
+ * after its latest conflicting predecessor
+ *
+ * thread bound systems run on the calling thread (simulation thread),
+ * all other systems of a wave are passed to the fork/join pool
+ */
+public class SystemScheduler {
+
+    // systems in registration order
+    private List<ECSystem> systems = new ArrayList<>();
+
+    // cached waves, null if they have to be rebuilt
+    private List<List<ECSystem>> waves = null;
+
+    // worker pool
+    private ForkJoinPool pool;
+
+    // reusable list of running tasks
+    private List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+    /**
+     * constructor
+     *
+     * @param pool
+     *      worker pool
+     */
+    public SystemScheduler(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * register a system
+     * the registration order is the execution order of conflicting systems
+     *
+     * @param system
+     *      system
+     */
+    public void add(ECSystem system) {
+        systems.add(system);
+        waves = null;
+    }
+
+    /**
+     * run all systems
+     *
+     * @param debug
+     *      debug mode
+     */
+    public void run(boolean debug) {
+        if (waves == null) {
+            build();
+        }
+
+        for (List<ECSystem> wave : waves) {
+
+            // single system, no need to hand it over
+            if (wave.size() == 1) {
+                wave.get(0).run(debug);
+                continue;
+            }
+
+            // pass workers to the pool
+            tasks.clear();
+            for (ECSystem system : wave) {
+                if (!system.isThreadBound()) {
+                    tasks.add(pool.submit(() -> system.run(debug)));
+                }
+            }
+
+            // run thread bound systems on this thread
+            for (ECSystem system : wave) {
+                if (system.isThreadBound()) {
+                    system.run(debug);
+                }
+            }
+
+            // wait for the wave to finish
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * get the waves
+     *
+     * @return
+     *      list of waves (do not modify)
+     */
+    public List<List<ECSystem>> getWaves() {
+        if (waves == null) {
+            build();
+        }
+        return Collections.unmodifiableList(waves);
+    }
+
+    /**
+     * build the waves
+     * every system is placed one wave after its latest conflicting predecessor
+     */
+    private void build() {
+        waves = new ArrayList<>();
+        int[] waveOf = new int[systems.size()];
+
+        for (int i = 0; i < systems.size(); i++) {
+            int wave = 0;
+            for (int j = 0; j < i; j++) {
+                if (conflicts(systems.get(j), systems.get(i))) {
+                    wave = Math.max(wave, waveOf[j] + 1);
+                }
+            }
+            waveOf[i] = wave;
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(systems.get(i));
+        }
+    }
+
+    /**
+     * check if two systems may not run concurrently
+     *
+     * @param a
+     *      system
+     * @param b
+     *      system
+     * @return
+     *      boolean
+     */
+    private static boolean conflicts(ECSystem a, ECSystem b) {
+        if (a.isExclusive() || b.isExclusive()) {
+            return true;
+        }
+        return intersects(a.writes(), b.reads()) || intersects(a.writes(), b.writes()) || intersects(a.reads(), b.writes());
+    }
+
+    /**
+     * helper function to check if two component sets share a class
+     *
+     * @param a
+     *      set
+     * @param b
+     *      set
+     * @return
+     *      boolean
+     */
+    private static boolean intersects(Set<Class<? extends Component>> a, Set<Class<? extends Component>> b) {
+        for (Class<? extends Component> component : a) {
+            if (b.contains(component)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package ecs.event;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * asynchronous observer
+ *
+ * wraps a (slow) observer, e.g. audio, telemetry or logging, so it never stalls the simulation:
+ * events are copied into a bounded queue of preallocated events and delivered on a thread of a dedicated executor
+ * events are delivered one after another and in order, never concurrently
+ * when the queue is full the OverflowPolicy decides
+ *
+ * e.g.
+ *      eventNotifier.addEventhandler(GameEvent.ANY, new AsyncObserver(audioPlayer, 256, OverflowPolicy.DROP_OLDEST));
+ */
+public class AsyncObserver implements GameEventObserver {
+
+    // executor of all asynchronous observers, daemon threads
+    private static final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "event-observer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // wrapped observer
+    private final GameEventObserver observer;
+
+    // overflow policy
+    private final OverflowPolicy policy;
+
+    // queue of copied events (ring buffer), guarded by this
+    private final GameEvent[] queue;
+    private int head = 0;
+    private int size = 0;
+
+    // a delivery task is scheduled or running, guarded by this
+    private boolean scheduled = false;
+
+    // number of dropped or coalesced events, guarded by this
+    private long dropped = 0;
+
+    // event passed to the wrapped observer, delivery thread only
+    private final GameEvent delivered = new GameEvent(GameEvent.ANY);
+
+    // delivery task
+    private final Runnable deliver = this::deliver;
+
+    /**
+     * constructor
+     *
+     * @param observer
+     *      wrapped observer
+     * @param capacity
+     *      max queued events
+     * @param policy
+     *      overflow policy
+     */
+    public AsyncObserver(GameEventObserver observer, int capacity, OverflowPolicy policy) {
+        this.observer = observer;
+        this.policy = policy;
+        queue = new GameEvent[Math.max(capacity, 1)];
+        for (int i = 0; i < queue.length; i++) {
+            queue[i] = new GameEvent(GameEvent.ANY);
+        }
+    }
+
+    /**
+     * queue a copy of the event and return right away
+     * blocks only with OverflowPolicy.BLOCK and a full queue
+     *
+     * @param gameEvent
+     *      event
+     */
+    @Override
+    public synchronized void getNotification(GameEvent gameEvent) {
+        if (size == queue.length) {
+            switch (policy) {
+                case COALESCE:
+                    for (int i = size - 1; i >= 0; i--) {
+                        GameEvent queued = queue[(head + i) % queue.length];
+                        if (queued.getEventType() == gameEvent.getEventType() && queued.getEntity() == gameEvent.getEntity()) {
+                            queued.set(gameEvent);
+                            dropped++;
+                            return;
+                        }
+                    }
+                    // nothing to coalesce, drop the oldest
+                    release();
+                    break;
+                case BLOCK:
+                    while (size == queue.length) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            dropped++;
+                            return;
+                        }
+                    }
+                    break;
+                default:
+                    release();
+                    break;
+            }
+        }
+        queue[(head + size) % queue.length].set(gameEvent);
+        size++;
+
+        if (!scheduled) {
+            scheduled = true;
+            executor.execute(deliver);
+        }
+    }
+
+    /**
+     * get the number of events dropped or coalesced on overflow
+     *
+     * @return
+     *      count
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * get the wrapped observer
+     *
+     * @return
+     *      observer
+     */
+    public GameEventObserver getObserver() {
+        return observer;
+    }
+
+    /**
+     * helper function to drop the oldest queued event
+     */
+    private void release() {
+        head = (head + 1) % queue.length;
+        size--;
+        dropped++;
+    }
+
+    /**
+     * delivery task: pass all queued events to the wrapped observer
+     * runs on the executor, the event is copied out, so the observer runs without holding the lock
+     */
+    private void deliver() {
+        while (true) {
+            synchronized (this) {
+                if (size == 0) {
+                    scheduled = false;
+                    return;
+                }
+                delivered.set(queue[head]);
+                head = (head + 1) % queue.length;
+                size--;
+                notifyAll();
+            }
+            try {
+                observer.getNotification(delivered);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
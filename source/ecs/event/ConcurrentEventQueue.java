@@ -0,0 +1,263 @@
+package ecs.event;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * multi-producer, single-consumer queue of reusable events
+ *
+ * every producer thread appends to its own ring buffer of preallocated events (single producer, single consumer),
+ * so producers never contend and never lock
+ * the consumer reads the events producer by producer: all events of a producer keep their order,
+ * producers are read in the order they published their first event
+ * systems that publish from parallel workers and need a reproducible order buffer their events per chunk
+ * and publish them from the calling thread (see MovementSystem)
+ *
+ * a full ring buffer is not overwritten, the producer continues in a new one of twice the size
+ * the consumer follows once it has read the old one
+ *
+ * producers of terminated threads (e.g. of thread pools) are removed once all their events have been read
+ *
+ * e.g.
+ *      queue.begin();
+ *      for (GameEvent event = queue.next(); event != null; event = queue.next()) {
+ *          ...
+ *      }
+ */
+public class ConcurrentEventQueue {
+
+    // capacity of the first ring buffer of a producer
+    private final int capacity;
+
+    // all producers in order of registration, copy on write
+    private volatile Producer[] producers = new Producer[0];
+
+    // producer of the current thread
+    private final ThreadLocal<Producer> producer = ThreadLocal.withInitial(this::register);
+
+    // consumer: producers and their events to read in this pass
+    private Producer[] reading = new Producer[0];
+    private long[] remaining = new long[0];
+    private int index = 0;
+
+    // consumer: event returned by the last next(), released on the following call
+    private Producer current = null;
+
+    /**
+     * constructor
+     *
+     * @param capacity
+     *      preallocated events per producer, rounded up to a power of two
+     */
+    public ConcurrentEventQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * publish a copy of an event
+     * the given event is not kept and can be reused by the caller
+     * can be called from any thread, without locking
+     *
+     * @param event
+     *      event
+     */
+    public void add(GameEvent event) {
+        producer.get().add(event);
+    }
+
+    /**
+     * start a new pass of the consumer
+     * only events published before are read, later ones are kept for the next pass
+     * consumer thread only
+     */
+    public void begin() {
+        release();
+        removeFinished();
+        reading = producers;
+        if (remaining.length < reading.length) {
+            remaining = new long[reading.length];
+        }
+        for (int i = 0; i < reading.length; i++) {
+            remaining[i] = reading[i].available();
+        }
+        index = 0;
+    }
+
+    /**
+     * get the next event of the pass
+     * the event returned before is released and must not be used anymore
+     * consumer thread only
+     *
+     * @return
+     *      event or null, if all events of the pass have been read
+     */
+    public GameEvent next() {
+        release();
+        while (index < reading.length && remaining[index] == 0) {
+            index++;
+        }
+        if (index == reading.length) {
+            return null;
+        }
+        remaining[index]--;
+        current = reading[index];
+        return current.peek();
+    }
+
+    /**
+     * helper function to release the event returned by the last next()
+     */
+    private void release() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+
+    /**
+     * helper function to register the producer of the current thread
+     * runs once per thread
+     *
+     * @return
+     *      producer
+     */
+    private synchronized Producer register() {
+        Producer newProducer = new Producer(Thread.currentThread(), capacity);
+        Producer[] grown = Arrays.copyOf(producers, producers.length + 1);
+        grown[producers.length] = newProducer;
+        producers = grown;
+        return newProducer;
+    }
+
+    /**
+     * helper function to remove the producers of terminated threads, whose events have all been read
+     * a terminated thread publishes no more events, so they can not be lost
+     */
+    private synchronized void removeFinished() {
+        Producer[] current = producers;
+        Producer[] kept = new Producer[current.length];
+        int count = 0;
+        for (Producer candidate : current) {
+            if (!candidate.isFinished()) {
+                kept[count++] = candidate;
+            }
+        }
+        if (count < current.length) {
+            producers = Arrays.copyOf(kept, count);
+        }
+    }
+
+    /**
+     * events of one producer thread
+     * a chain of ring buffers, written by the producer and read by the consumer
+     */
+    private static class Producer {
+
+        // number of events published (producer) and released (consumer)
+        // published is written after the event, so reading it makes the event visible to the consumer
+        private volatile long published = 0;
+        private long released = 0;
+
+        // ring buffer the producer writes to
+        private Ring write;
+        // ring buffer the consumer reads from
+        private Ring read;
+
+        // producer thread
+        private final WeakReference<Thread> owner;
+
+        Producer(Thread owner, int capacity) {
+            this.owner = new WeakReference<>(owner);
+            write = read = new Ring(capacity);
+        }
+
+        /**
+         * consumer: check if the producer thread has terminated and all its events have been released
+         *
+         * @return
+         *      boolean
+         */
+        boolean isFinished() {
+            Thread thread = owner.get();
+            return (thread == null || !thread.isAlive()) && available() == 0;
+        }
+
+        /**
+         * producer: copy an event into the next free slot
+         *
+         * @param event
+         *      event
+         */
+        void add(GameEvent event) {
+            Ring ring = write;
+            if (ring.tail - ring.head == ring.slots.length) {
+                // full, continue in a larger ring buffer
+                Ring grown = new Ring(ring.slots.length * 2);
+                ring.next = grown;
+                write = ring = grown;
+            }
+            ring.slots[(int) ring.tail & ring.mask].set(event);
+            ring.tail++;
+            published++;
+        }
+
+        /**
+         * consumer: number of published events not yet released
+         *
+         * @return
+         *      count
+         */
+        long available() {
+            return published - released;
+        }
+
+        /**
+         * consumer: get the oldest event not yet released
+         * there has to be one (see available())
+         *
+         * @return
+         *      event
+         */
+        GameEvent peek() {
+            Ring ring = read;
+            if (ring.head == ring.tail) {
+                // the producer continued in the next ring buffer
+                read = ring = ring.next;
+            }
+            return ring.slots[(int) ring.head & ring.mask];
+        }
+
+        /**
+         * consumer: release the oldest event, its slot is reused by the producer
+         */
+        void release() {
+            read.head++;
+            released++;
+        }
+    }
+
+    /**
+     * ring buffer of preallocated events
+     */
+    private static class Ring {
+        final GameEvent[] slots;
+        final int mask;
+
+        // next slot to read, written by the consumer
+        volatile long head = 0;
+        // next slot to write, written by the producer (published via Producer.published)
+        long tail = 0;
+
+        // ring buffer the producer continued in, once this one was full
+        volatile Ring next = null;
+
+        Ring(int capacity) {
+            int length = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            slots = new GameEvent[length];
+            for (int i = 0; i < length; i++) {
+                slots[i] = new GameEvent(GameEvent.ANY);
+            }
+            mask = length - 1;
+        }
+    }
+}
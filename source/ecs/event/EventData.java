@@ -4,9 +4,10 @@ package ecs.event;
  * event data types
  */
 public enum EventData {
-    CollisionUUID("UUID of collision"),
-    ColliderUUID("UUID of collider"),
-    VELOCITY("Point3D");
+    CollisionUUID("id of collision"),
+    ColliderUUID("id of collider"),
+    VELOCITY("Point3D"),
+    NORMAL("Point3D");
 
     EventData(String description) {
 
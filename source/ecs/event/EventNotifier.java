@@ -1,5 +1,6 @@
 package ecs.event;
 
+import javafx.event.Event;
 import javafx.event.EventType;
 
 import java.util.*;
@@ -7,6 +8,15 @@ import java.util.*;
 /**
  * event system handles and distribute events
  * it will not work directly on components
+ *
+ * observers listen to an event type and receive all events of this type and its subtypes
+ * (e.g. observers of GameEvent.ANY receive all game events)
+ * a dispatch table maps every fired event type to the observers of the type and all its supertypes,
+ * so firing an event is one lookup and one array iteration
+ * the table is rebuilt when observers are added or removed
+ *
+ * observers are notified on the firing thread, slow observers should be wrapped in an AsyncObserver
+ *
  * singleton
  */
 public class EventNotifier implements EventNotifierInterface {
@@ -22,6 +32,10 @@ public class EventNotifier implements EventNotifierInterface {
 
     private HashMap<EventType<GameEvent>, List<GameEventObserver>> listeners = new HashMap<>();
 
+    // dispatch table: observers by fired event type, incl. the observers of all supertypes
+    // replaced as a whole (copy on write), so it can be read without locking
+    private volatile HashMap<EventType<? extends Event>, GameEventObserver[]> dispatchTable = new HashMap<>();
+
     /**
      * fire events
      *
@@ -29,21 +43,13 @@ public class EventNotifier implements EventNotifierInterface {
      */
     @Override
     public void fireEvent(GameEvent gameEvent) {
-
-        if (listeners.containsKey(gameEvent.getEventType())) {
-            List<GameEventObserver> store = listeners.get(gameEvent.getEventType());
-            for (GameEventObserver observer : store) {
-                observer.getNotification(gameEvent);
-            }
+        GameEventObserver[] observers = dispatchTable.get(gameEvent.getEventType());
+        if (observers == null) {
+            observers = addDispatchEntry(gameEvent.getEventType());
         }
-
-        if (listeners.containsKey(gameEvent.ANY)) {
-            List<GameEventObserver> store = listeners.get(gameEvent.ANY);
-            for (GameEventObserver observer : store) {
-                observer.getNotification(gameEvent);
-            }
+        for (GameEventObserver observer : observers) {
+            observer.getNotification(gameEvent);
         }
-
     }
 
     /**
@@ -60,8 +66,9 @@ public class EventNotifier implements EventNotifierInterface {
             listeners.put(gameEvent, store);
         } else {
             List<GameEventObserver> store = listeners.get(gameEvent);
-            if(!store.contains(gameEvent)) store.add(handler);
+            if(!store.contains(handler)) store.add(handler);
         }
+        rebuildDispatchTable();
     }
 
     /**
@@ -71,12 +78,68 @@ public class EventNotifier implements EventNotifierInterface {
      * @param handler
      */
     @Override
-    public void removeEventhandler(EventType<GameEvent> gameEvent, GameEventObserver handler) {
+    public synchronized void removeEventhandler(EventType<GameEvent> gameEvent, GameEventObserver handler) {
         System.out.println("remove eventhandler: "+handler+" from event: "+gameEvent);
 
         if (listeners.containsKey(gameEvent)) {
             List<GameEventObserver> currentListeners = listeners.get(gameEvent);
             currentListeners.remove(handler);
         }
+        rebuildDispatchTable();
+    }
+
+    /**
+     * helper function to rebuild the dispatch table
+     * covers all registered and all fired event types
+     */
+    private void rebuildDispatchTable() {
+        HashMap<EventType<? extends Event>, GameEventObserver[]> table = new HashMap<>();
+        for (EventType<? extends Event> type : dispatchTable.keySet()) {
+            table.put(type, flatten(type));
+        }
+        for (EventType<GameEvent> type : listeners.keySet()) {
+            table.put(type, flatten(type));
+        }
+        dispatchTable = table;
+    }
+
+    /**
+     * helper function to add a type to the dispatch table, when it is fired for the first time
+     *
+     * @param type
+     *      event type
+     * @return
+     *      observers of the type
+     */
+    private synchronized GameEventObserver[] addDispatchEntry(EventType<? extends Event> type) {
+        GameEventObserver[] observers = dispatchTable.get(type);
+        if (observers == null) {
+            HashMap<EventType<? extends Event>, GameEventObserver[]> table = new HashMap<>(dispatchTable);
+            observers = flatten(type);
+            table.put(type, observers);
+            dispatchTable = table;
+        }
+        return observers;
+    }
+
+    /**
+     * helper function to collect the observers of a type and all its supertypes
+     * observers of the type come first, then those of the supertypes
+     * an observer listening to several of them is notified once
+     *
+     * @param type
+     *      event type
+     * @return
+     *      observers
+     */
+    private GameEventObserver[] flatten(EventType<? extends Event> type) {
+        Set<GameEventObserver> observers = new LinkedHashSet<>();
+        for (EventType<? extends Event> superType = type; superType != null; superType = superType.getSuperType()) {
+            List<GameEventObserver> store = listeners.get(superType);
+            if (store != null) {
+                observers.addAll(store);
+            }
+        }
+        return observers.toArray(new GameEventObserver[0]);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,143 @@
+package ecs.event;
+
+import javafx.event.EventType;
+
+/**
+ * ring buffer of reusable events
+ *
+ * all slots are preallocated, producers claim the next free slot and fill its payload,
+ * the consumer reads the queued events and releases them afterwards, so the slots are recycled
+ * a full queue doubles its capacity (keeping the order), it never drops events
+ *
+ * events must not be kept after they were released, copy them (GameEvent.set()) instead
+ *
+ * not thread-safe
+ */
+public class EventQueue {
+
+    // default capacity, e.g. for per-worker buffers
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // slots, the capacity is a power of two
+    private GameEvent[] slots;
+    private int mask;
+
+    // first queued event and number of queued events
+    private int head = 0;
+    private int size = 0;
+
+    public EventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * constructor
+     *
+     * @param capacity
+     *      preallocated slots, rounded up to a power of two
+     */
+    public EventQueue(int capacity) {
+        int length = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        slots = new GameEvent[length];
+        for (int i = 0; i < length; i++) {
+            slots[i] = new GameEvent(GameEvent.ANY);
+        }
+        mask = length - 1;
+    }
+
+    /**
+     * claim the next free slot
+     * the returned event is reset to the given type and queued, fill its payload before the queue is read
+     *
+     * @param type
+     *      event type
+     * @return
+     *      event
+     */
+    public GameEvent claim(EventType<GameEvent> type) {
+        if (size == slots.length) {
+            grow();
+        }
+        GameEvent event = slots[(head + size) & mask];
+        event.reset(type);
+        size++;
+        return event;
+    }
+
+    /**
+     * queue a copy of an event
+     * the given event is not kept and can be reused by the caller
+     *
+     * @param event
+     *      event
+     */
+    public void add(GameEvent event) {
+        if (size == slots.length) {
+            grow();
+        }
+        slots[(head + size) & mask].set(event);
+        size++;
+    }
+
+    /**
+     * get a queued event
+     *
+     * @param index
+     *      index, 0 is the oldest event
+     * @return
+     *      event
+     */
+    public GameEvent get(int index) {
+        return slots[(head + index) & mask];
+    }
+
+    /**
+     * get the number of queued events
+     *
+     * @return
+     *      size
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * release the oldest events, their slots are reused
+     *
+     * @param count
+     *      number of events
+     */
+    public void release(int count) {
+        count = Math.min(count, size);
+        head = (head + count) & mask;
+        size -= count;
+    }
+
+    /**
+     * release all events
+     */
+    public void clear() {
+        release(size);
+    }
+
+    /**
+     * helper function to double the capacity
+     * queued events keep their order, new slots are preallocated
+     */
+    private void grow() {
+        GameEvent[] grown = new GameEvent[slots.length * 2];
+        for (int i = 0; i < slots.length; i++) {
+            grown[i] = slots[(head + i) & mask];
+        }
+        for (int i = slots.length; i < grown.length; i++) {
+            grown[i] = new GameEvent(GameEvent.ANY);
+        }
+        slots = grown;
+        mask = grown.length - 1;
+        head = 0;
+    }
+}
@@ -2,6 +2,7 @@ package ecs.event;
 
 import javafx.event.Event;
 import javafx.event.EventType;
+import javafx.geometry.Point3D;
 
 import java.util.HashMap;
 
@@ -9,6 +10,10 @@ import java.util.HashMap;
  * GameEvent extends the JavaFX-Event to
  * - carry data along with
  * - to name the event
+ *
+ * the common payload (entity, collider, velocity and normal) is stored in primitive fields,
+ * so events can be preallocated and reused (see EventQueue)
+ * events passed to observers are recycled after the tick, observers have to copy what they keep
  */
 public class GameEvent extends Event {
     // set generic GameEvent
@@ -17,12 +22,25 @@ public class GameEvent extends Event {
     // extend GameEvents
     // define your GameEvents for EventCommandStack & EventBus here
     public static final EventType<GameEvent> OUT_OF_WORLD = new EventType<>(ANY, "OUT_OF_WORLD");
+    // raised once per collider hit in a tick, consumed by the EventCommandSystem and not delivered to observers
     public static final EventType<GameEvent> COLLISION = new EventType<>(ANY, "COLLISION");
+    // contacts of a collision (see EventCommandSystem), observers of COLLISION receive both
+    public static final EventType<GameEvent> COLLISION_ENTER = new EventType<>(COLLISION, "COLLISION_ENTER");
+    public static final EventType<GameEvent> COLLISION_EXIT = new EventType<>(COLLISION, "COLLISION_EXIT");
     public static final EventType<GameEvent> ENTITY_JUMP = new EventType<>(ANY, "ENTITY_JUMP");
     public static final EventType<GameEvent> ENTITY_LAND = new EventType<>(ANY, "ENTITY_LAND");
 
-    // all data is stored here
-    private HashMap<EventData, Object> data = new HashMap<>();
+    // no entity
+    public static final long NONE = -1;
+
+    // primitive payload
+    private long entity = NONE;
+    private long collider = NONE;
+    private double velocityX, velocityY, velocityZ;
+    private double normalX, normalY, normalZ;
+
+    // additional data is stored here, created on demand
+    private HashMap<EventData, Object> data = null;
 
     /**
      * constructor
@@ -33,6 +51,146 @@ public class GameEvent extends Event {
         super(type);
     }
 
+    /**
+     * reuse the event for a new type
+     * clears the payload and the consumed flag
+     *
+     * @param type
+     *      event type
+     */
+    public void reset(EventType<? extends GameEvent> type) {
+        eventType = type;
+        consumed = false;
+        entity = NONE;
+        collider = NONE;
+        velocityX = velocityY = velocityZ = 0;
+        normalX = normalY = normalZ = 0;
+        if (data != null) {
+            data.clear();
+        }
+    }
+
+    /**
+     * copy type and payload of another event
+     *
+     * @param other
+     *      event
+     */
+    public void set(GameEvent other) {
+        eventType = other.eventType;
+        consumed = other.consumed;
+        entity = other.entity;
+        collider = other.collider;
+        velocityX = other.velocityX;
+        velocityY = other.velocityY;
+        velocityZ = other.velocityZ;
+        normalX = other.normalX;
+        normalY = other.normalY;
+        normalZ = other.normalZ;
+        if (data != null) {
+            data.clear();
+        }
+        if (other.data != null && !other.data.isEmpty()) {
+            getAllData().putAll(other.data);
+        }
+    }
+
+    /**
+     * set the id of the entity the event is about (e.g. the moving entity of a collision)
+     *
+     * @param entity
+     *      entity id
+     */
+    public void setEntity(long entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * get the id of the entity the event is about
+     *
+     * @return
+     *      entity id or NONE
+     */
+    public long getEntity() {
+        return entity;
+    }
+
+    /**
+     * set the id of the collider entity of a collision
+     *
+     * @param collider
+     *      entity id
+     */
+    public void setCollider(long collider) {
+        this.collider = collider;
+    }
+
+    /**
+     * get the id of the collider entity of a collision
+     *
+     * @return
+     *      entity id or NONE
+     */
+    public long getCollider() {
+        return collider;
+    }
+
+    /**
+     * set the velocity of a collision (the velocity on the sides the collision was detected)
+     *
+     * @param x
+     *      x-velocity
+     * @param y
+     *      y-velocity
+     * @param z
+     *      z-velocity
+     */
+    public void setVelocity(double x, double y, double z) {
+        velocityX = x;
+        velocityY = y;
+        velocityZ = z;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getVelocityZ() {
+        return velocityZ;
+    }
+
+    /**
+     * set the surface normal of a collision
+     *
+     * @param x
+     *      x-normal
+     * @param y
+     *      y-normal
+     * @param z
+     *      z-normal
+     */
+    public void setNormal(double x, double y, double z) {
+        normalX = x;
+        normalY = y;
+        normalZ = z;
+    }
+
+    public double getNormalX() {
+        return normalX;
+    }
+
+    public double getNormalY() {
+        return normalY;
+    }
+
+    public double getNormalZ() {
+        return normalZ;
+    }
+
     /**
      * add data to the event
      *
@@ -42,11 +200,12 @@ public class GameEvent extends Event {
      *      you can store any java-object
      */
     public void addData(EventData dataType, Object object) {
-        data.put(dataType, object);
+        getAllData().put(dataType, object);
     }
 
     /**
      * returns data from event
+     * falls back to the primitive payload (allocates, keep it out of hot paths)
      *
      * @param dataType
      *      enum EventData expected
@@ -54,16 +213,33 @@ public class GameEvent extends Event {
      *      stored object data
      */
     public Object getData(EventData dataType) {
-        return data.get(dataType);
+        if (data != null && data.containsKey(dataType)) {
+            return data.get(dataType);
+        }
+        switch (dataType) {
+            case CollisionUUID:
+                return entity == NONE ? null : entity;
+            case ColliderUUID:
+                return collider == NONE ? null : collider;
+            case VELOCITY:
+                return new Point3D(velocityX, velocityY, velocityZ);
+            case NORMAL:
+                return new Point3D(normalX, normalY, normalZ);
+            default:
+                return null;
+        }
     }
 
     /**
-     * returns all data from event
+     * returns all additional data from event
      *
      * @return
      *      stored object data
      */
     public HashMap<EventData, Object> getAllData() {
+        if (data == null) {
+            data = new HashMap<>();
+        }
         return data;
     }
 }
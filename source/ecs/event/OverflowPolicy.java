@@ -0,0 +1,14 @@
+package ecs.event;
+
+/**
+ * what an asynchronous observer does with a new event, when its queue is full (see AsyncObserver)
+ */
+public enum OverflowPolicy {
+    DROP_OLDEST("drop the oldest queued event"),
+    COALESCE("replace a queued event of the same type and entity, else drop the oldest"),
+    BLOCK("wait until the observer has taken an event, stalls the firing thread");
+
+    OverflowPolicy(String description) {
+
+    }
+}
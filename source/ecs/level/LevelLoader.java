@@ -75,7 +75,7 @@ public class LevelLoader {
                         z = Math.random() * max_z - 0.5 * max_z;
                     }
 
-                    Block block = new Block(x*blocksize, y*blocksize, z*blocksize, rotation);
+                    Block block = new Block(x*blocksize, y*blocksize, z*blocksize, rotation, true);
                     block.setMaterial(blockMaterial);
                 }
 
@@ -1,7 +1,5 @@
 package ecs.settings;
 
-import javafx.geometry.Point3D;
-import javafx.scene.shape.Box;
 import java.util.HashMap;
 
 /**
@@ -39,19 +37,48 @@ public class Settings {
     private static final int SPEED = 5;
     // player jump-velocity
     private static final int JUMP = -15;
+    // simulation ticks per second, gravity, speed and jump are per tick
+    private static final int TICK_RATE = 60;
+    // max ticks per frame, after a hitch the rest of the backlog is dropped
+    private static final int MAX_CATCH_UP_TICKS = 5;
     // gravity strength
     private static final double GRAVITY = 0.5;
     // enable audio player
     private static final boolean PLAY_SOUNDS = true;
 
     // movement system
-    // safe spot for self-collision
-    private static Point3D SAFE_SPOT = new Point3D(0, 0, 0);
     // fallback size for dummy box
-    private static Box fallBackSize = new Box(5,5,5);
-    // set the size of the smallest entity here
-    // stepsize is used during collision detection
-    private static int stepsize = BLOCKSIZE;
+    private static double fallBackSize = 5;
+    // ticks with zero velocity until an entity falls asleep
+    private static final int SLEEP_TICKS = 30;
+
+    // parallel systems
+    // entities per chunk (task)
+    private static final int PARALLEL_CHUNK_SIZE = 256;
+    // min entities to run in parallel, below systems run serially
+    private static final int PARALLEL_MIN_ENTITIES = 2048;
+
+    // render
+    // size of a scene region (group of nodes), see SceneRegions
+    private static final int REGION_SIZE = BLOCKSIZE * 10;
+    // size of a static mesh chunk, see StaticMeshSystem
+    private static final int CHUNK_SIZE = BLOCKSIZE * 10;
+    // only attach regions in view of the camera
+    private static final boolean CULLING = true;
+    // margin around the view of the camera, covers camera rotation and nodes reaching into a region
+    private static final int CULL_MARGIN = BLOCKSIZE * 6;
+    // max lights switched on at once, see LightManager
+    private static final int MAX_LIGHTS = 3;
+    // max distance of a light to the camera focus to be switched on
+    private static final int LIGHT_RANGE = BLOCKSIZE * 20;
+    // lights that are on rank this much better, so they do not flicker at the boundary
+    private static final double LIGHT_HYSTERESIS = 0.25;
+
+    // events
+    // preallocated event slots of the event queue, it grows when a tick raises more events
+    private static final int EVENT_QUEUE_CAPACITY = 1024;
+    // max queued events of an asynchronous observer (e.g. audio player), see AsyncObserver
+    private static final int ASYNC_OBSERVER_CAPACITY = 256;
 
     private static final HashMap<String, Boolean> DEBUG = new HashMap<>();
 
@@ -68,7 +95,6 @@ public class Settings {
         DEBUG.put("SystemManager@init", true);
         DEBUG.put("SystemManager@update", false);
         DEBUG.put("MovementSystem@dummy", false);
-        DEBUG.put("MovementSystem@stepsize", false);
         DEBUG.put("Light@color", false);
         DEBUG.put("AudioPlayer@notify", true);
         return settings;
@@ -102,6 +128,14 @@ public class Settings {
         return SPEED;
     }
 
+    public static int getTickRate() {
+        return TICK_RATE;
+    }
+
+    public static int getMaxCatchUpTicks() {
+        return MAX_CATCH_UP_TICKS;
+    }
+
     public static int getJump() {
         return JUMP;
     }
@@ -114,16 +148,56 @@ public class Settings {
         return PLAY_SOUNDS;
     }
 
-    public static Point3D getSafeSpot() {
-        return SAFE_SPOT;
+    public static double getFallBackSize() {
+        return fallBackSize;
     }
 
-    public static Box getFallBackSize() {
-        return fallBackSize;
+    public static int getSleepTicks() {
+        return SLEEP_TICKS;
+    }
+
+    public static int getParallelChunkSize() {
+        return PARALLEL_CHUNK_SIZE;
+    }
+
+    public static int getParallelMinEntities() {
+        return PARALLEL_MIN_ENTITIES;
+    }
+
+    public static int getRegionSize() {
+        return REGION_SIZE;
+    }
+
+    public static int getChunkSize() {
+        return CHUNK_SIZE;
+    }
+
+    public static boolean culling() {
+        return CULLING;
+    }
+
+    public static int getCullMargin() {
+        return CULL_MARGIN;
+    }
+
+    public static int getMaxLights() {
+        return MAX_LIGHTS;
+    }
+
+    public static int getLightRange() {
+        return LIGHT_RANGE;
+    }
+
+    public static double getLightHysteresis() {
+        return LIGHT_HYSTERESIS;
+    }
+
+    public static int getEventQueueCapacity() {
+        return EVENT_QUEUE_CAPACITY;
     }
 
-    public static int getStepsize() {
-        return stepsize;
+    public static int getAsyncObserverCapacity() {
+        return ASYNC_OBSERVER_CAPACITY;
     }
 
     public static GameType gameType() {